@@ -1,15 +1,15 @@
 package lambda;
 
-import lambda.parser.Definition;
-import lambda.parser.Definitions;
 import lambda.utils.LambdaTermVisitor;
 import lambda.utils.LambdaTermVisitorVoid;
+import lambda.utils.NameSupply;
 
 import main.Main;
 
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.ArrayList;
+import java.util.Map;
 
 
 
@@ -43,16 +43,6 @@ public class Application extends LambdaTerm {
     updateHash();
   }
 
-  public String toString() {
-    return "(" + left.toString() + ")(" + right.toString() + ")";
-  }
-
-  public String toString(Definitions definitions) {
-    Definition defined = isDefined(definitions);
-    if(defined != null) return defined.getName();
-    return "(" + left.toString(definitions) + ")(" + right.toString(definitions) + ")";
-  }
-
   /**
    * LambdaTerm.
    */
@@ -83,6 +73,14 @@ public class Application extends LambdaTerm {
     return lambda.getTerm().substitute(lambda.getName(), right);
   }
 
+  /**
+   * Contracts the redex without alpha renaming, see instantiate.
+   */
+  public LambdaTerm rewrite(NameSupply names) {
+    Lambda lambda = (Lambda) left;
+    return lambda.getTerm().instantiate(lambda.getName(), right, names);
+  }
+
   protected LambdaTerm substitute(String variable, LambdaTerm term, HashSet<String> freeVars, HashMap<String,String> renaming) {
     left = left.substitute(variable, term, freeVars, renaming);
     right = right.substitute(variable, term, freeVars, renaming);
@@ -90,6 +88,19 @@ public class Application extends LambdaTerm {
     return this;
   }
 
+  protected LambdaTerm instantiate(String variable, LambdaTerm term, NameSupply names, boolean[] used) {
+    left = left.instantiate(variable, term, names, used);
+    right = right.instantiate(variable, term, names, used);
+    updateHash();
+    return this;
+  }
+
+  protected LambdaTerm copyFresh(NameSupply names, HashMap<String, String> renaming) {
+    Application application = new Application(left.copyFresh(names, renaming), right.copyFresh(names, renaming));
+    copyTo(application);
+    return application;
+  }
+
   public LambdaTerm replace(String variable, LambdaTerm term) {
     left = left.replace(variable, term); 
     right = right.replace(variable, term);
@@ -97,6 +108,13 @@ public class Application extends LambdaTerm {
     return this;
   }
 
+  public LambdaTerm replace(Map<String, LambdaTerm> terms) {
+    left = left.replace(terms);
+    right = right.replace(terms);
+    updateHash();
+    return this;
+  }
+
   // Visitors
   public <T,S> T visit(LambdaTermVisitor<T,S> visitor, S s) {
     return visitor.visit(this, s);
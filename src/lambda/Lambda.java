@@ -1,13 +1,13 @@
 package lambda;
 
-import lambda.parser.Definition;
-import lambda.parser.Definitions;
 import lambda.utils.LambdaTermVisitor;
 import lambda.utils.LambdaTermVisitorVoid;
+import lambda.utils.NameSupply;
 
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.ArrayList;
+import java.util.Map;
 
 import main.Main;
 
@@ -41,16 +41,6 @@ public class Lambda extends LambdaTerm {
     updateHash();
   }
 
-  public String toString() {
-    return "\u03BB" + name + "." + term.toString();
-  }
-
-  public String toString(Definitions definitions) {
-    Definition defined = isDefined(definitions);
-    if(defined != null) return defined.getName();
-    return "\u03BB" + name + "." + term.toString(definitions);
-  }
-
   /**
    * LambdaTerm.
    */
@@ -76,39 +66,67 @@ public class Lambda extends LambdaTerm {
   }
 
   protected LambdaTerm substitute(String variable, LambdaTerm term, HashSet<String> freeVars, HashMap<String,String> renaming) {
+    // this binder hides a renaming of an outer binder with the same name
+    String shadowed = renaming.remove(name);
+
     // we need alpha renaming ?
-    boolean renamed = false;
-    if(freeVars.contains(name) && !renaming.containsKey(name)) {
-      String renamedName = rename(name, freeVars);
+    String renamedName = null;
+    if(freeVars.contains(name)) {
+      renamedName = rename(name, freeVars);
       renaming.put(name, renamedName);
       freeVars.add(renamedName);
-      System.out.println("Alpha Reduction: (" + this.term.toString()+")["+name + "\\" + renamedName+"]");
       Main.AlphaReduction = "Alpha Reduction: (" + this.term.toString()+")["+name + "\\" + renamedName+"]";
-      renamed = true;
     }
 
     // apply substitution to subterm
     this.term = this.term.substitute(variable, variable.equals(name) ? null : term, freeVars, renaming);
     updateHash();
 
-    String renamedName = renaming.get(name);
-    name = renamedName != null ? renamedName : name;
-
-    if(renamed) {
-      renaming.remove(this.name);
+    if(renamedName != null) {
+      renaming.remove(name);
       freeVars.remove(renamedName);
-      
     }
+    if(shadowed != null) renaming.put(name, shadowed);
+    if(renamedName != null) name = renamedName;
     
     return this;
   }
 
+  protected LambdaTerm instantiate(String variable, LambdaTerm term, NameSupply names, boolean[] used) {
+    if(name.equals(variable)) return this;
+
+    this.term = this.term.instantiate(variable, term, names, used);
+    updateHash();
+    return this;
+  }
+
+  protected LambdaTerm copyFresh(NameSupply names, HashMap<String, String> renaming) {
+    String freshName = names.fresh(name);
+    String previous = renaming.put(name, freshName);
+
+    Lambda lambda = new Lambda(freshName, term.copyFresh(names, renaming));
+    copyTo(lambda);
+
+    if(previous != null) renaming.put(name, previous); else renaming.remove(name);
+    return lambda;
+  }
+
   public LambdaTerm replace(String variable, LambdaTerm term) {
     this.term = this.term.replace(variable, term);
     updateHash();
     return this;
   }
 
+  public LambdaTerm replace(Map<String, LambdaTerm> terms) {
+    if(terms.containsKey(name)) {
+      terms = new HashMap<String, LambdaTerm>(terms);
+      terms.remove(name);
+    }
+    this.term = this.term.replace(terms);
+    updateHash();
+    return this;
+  }
+
   public <T,S> T visit(LambdaTermVisitor<T,S> visitor, S s) {
     return visitor.visit(this, s);
   }
@@ -1,14 +1,16 @@
 package lambda;
 
-import lambda.parser.Definition;
 import lambda.parser.Definitions;
 import lambda.utils.Bound;
 import lambda.utils.LambdaTermVisitorVoid;
 import lambda.utils.LambdaTermVisitor;
+import lambda.utils.NameSupply;
+import lambda.utils.TermPrinter;
 
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.ArrayList;
+import java.util.Map;
 
 public abstract class LambdaTerm {
 
@@ -32,8 +34,37 @@ public abstract class LambdaTerm {
 
   protected abstract LambdaTerm substitute(String variable, LambdaTerm term, HashSet<String> freeVars, HashMap<String,String> renaming);
 
+  /**
+   * Substitutes without alpha renaming. All binders must be distinct from
+   * each other and from the free variables (Barendregt convention), see
+   * copyFresh. The first occurrence of the variable takes the term itself,
+   * further occurrences get copies with fresh binders, so the convention
+   * is kept.
+   */
+  public LambdaTerm instantiate(String variable, LambdaTerm term, NameSupply names) {
+    return instantiate(variable, term, names, new boolean[1]);
+  }
+
+  protected abstract LambdaTerm instantiate(String variable, LambdaTerm term, NameSupply names, boolean[] used);
+
+  /**
+   * Copies the term with binders renamed by the name supply. Copying a
+   * term with a new supply establishes the Barendregt convention.
+   */
+  public LambdaTerm copyFresh(NameSupply names) {
+    return copyFresh(names, new HashMap<String, String>());
+  }
+
+  protected abstract LambdaTerm copyFresh(NameSupply names, HashMap<String, String> renaming);
+
   public abstract LambdaTerm replace(String variable, LambdaTerm term);
 
+  /**
+   * Replaces all free occurrences of the given names simultaneously by
+   * copies of their terms, in one traversal.
+   */
+  public abstract LambdaTerm replace(Map<String, LambdaTerm> terms);
+
   /**
    * Visitors.
    */
@@ -91,19 +122,15 @@ public abstract class LambdaTerm {
     isExpanded = expanded;
   }
 
-  /**
-   * Checks whether the lambda term is a defined term.
+  public String toString() {
+    return toString(null);
+  }
 
-   * @param definitions list of definitions
-   * @return the corresponding definition or null
+  /**
+   * Prints the term with every application in parentheses and defined
+   * subterms by their names.
    */
-  public Definition isDefined(Definitions definitions) {
-    for(Definition definition : definitions.getDefinitions()) {
-      if(definition.getName().equals("Init")) continue;
-      if(equals(definition.getTerm())) return definition;
-    }
-    return null;
+  public String toString(Definitions definitions) {
+    return new TermPrinter(definitions, false, TermPrinter.UNLIMITED, TermPrinter.UNLIMITED).toString(this);
   }
-
-  public abstract String toString(Definitions definitions);
 }
@@ -4,10 +4,12 @@ import lambda.parser.Definition;
 import lambda.parser.Definitions;
 import lambda.utils.LambdaTermVisitorVoid;
 import lambda.utils.LambdaTermVisitor;
+import lambda.utils.NameSupply;
 
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.ArrayList;
+import java.util.Map;
 
 /**
  * Variable.
@@ -65,10 +67,30 @@ public class Variable extends LambdaTerm {
     return new Variable(renamedName != null ? renamedName : name);
   }
 
+  protected LambdaTerm instantiate(String variable, LambdaTerm term, NameSupply names, boolean[] used) {
+    if(!name.equals(variable)) return this;
+    if(used[0]) return term.copyFresh(names);
+
+    used[0] = true;
+    return term;
+  }
+
+  protected LambdaTerm copyFresh(NameSupply names, HashMap<String, String> renaming) {
+    String renamedName = renaming.get(name);
+    Variable variable = new Variable(renamedName != null ? renamedName : name);
+    copyTo(variable);
+    return variable;
+  }
+
   public LambdaTerm replace(String variable, LambdaTerm term) {
     if(name.equals(variable)) return term.copy(); else return this;
   }
 
+  public LambdaTerm replace(Map<String, LambdaTerm> terms) {
+    LambdaTerm term = terms.get(name);
+    if(term != null) return term.copy(); else return this;
+  }
+
   // Visitors
   public <T,S> T visit(LambdaTermVisitor<T,S> visitor, S s) {
     return visitor.visit(this, s);
@@ -87,6 +109,10 @@ public class Variable extends LambdaTerm {
     if(!(term instanceof Variable)) return false;
     Variable variable = (Variable) term;
 
-    return binders.lastIndexOf(name) == termBinders.lastIndexOf(variable.name);
+    int index = binders.lastIndexOf(name);
+    if(index != termBinders.lastIndexOf(variable.name)) return false;
+
+    // free variables are equal only by name
+    return index >= 0 || name.equals(variable.name);
   }
 }
@@ -0,0 +1,81 @@
+package lambda.actions;
+
+import lambda.Application;
+import lambda.Lambda;
+import lambda.LambdaTerm;
+import lambda.Variable;
+import lambda.parser.Definitions;
+import lambda.utils.Position;
+
+import java.util.ArrayList;
+
+/**
+ * Number of nodes a rewrite adds to a term. It is computed from the redex
+ * alone, so the size of a term can be tracked step by step without
+ * counting the whole term again.
+ */
+public class Growth {
+  /**
+   * @return number of nodes of the term
+   */
+  public static long size(LambdaTerm term) {
+    long size = 0;
+    ArrayList<LambdaTerm> stack = new ArrayList<LambdaTerm>();
+    stack.add(term);
+    while(!stack.isEmpty()) {
+      LambdaTerm node = stack.remove(stack.size() - 1);
+      size++;
+      if(node instanceof Lambda) {
+        stack.add(((Lambda) node).getTerm());
+      } else if(node instanceof Application) {
+        stack.add(((Application) node).getRight());
+        stack.add(((Application) node).getLeft());
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Computes how much Rewrite at a position changes the size of a term.
+   *
+   * @param definitions definitions unfolded by the rewrite, or null
+   */
+  public static long of(LambdaTerm term, Position position, Definitions definitions) {
+    LambdaTerm redex = term.visit(new TermAtPosition(), position);
+
+    if(redex instanceof Variable) {
+      if(definitions == null) return 0;
+      String name = ((Variable) redex).getName();
+      LambdaTerm definition = definitions.getNormalForm(name);
+      if(definition == null) definition = definitions.get(name);
+      return definition != null ? size(definition) - 1 : 0;
+    }
+    if(!redex.isRedex()) return 0;
+
+    // (λx.M) N becomes M with every x replaced by N
+    Lambda lambda = (Lambda) ((Application) redex).getLeft();
+    long argument = size(((Application) redex).getRight());
+    return occurrences(lambda.getName(), lambda.getTerm()) * (argument - 1) - argument - 2;
+  }
+
+  /**
+   * @return number of free occurrences of a variable
+   */
+  private static long occurrences(String variable, LambdaTerm term) {
+    long occurrences = 0;
+    ArrayList<LambdaTerm> stack = new ArrayList<LambdaTerm>();
+    stack.add(term);
+    while(!stack.isEmpty()) {
+      LambdaTerm node = stack.remove(stack.size() - 1);
+      if(node instanceof Variable) {
+        if(((Variable) node).getName().equals(variable)) occurrences++;
+      } else if(node instanceof Lambda) {
+        if(!((Lambda) node).getName().equals(variable)) stack.add(((Lambda) node).getTerm());
+      } else {
+        stack.add(((Application) node).getRight());
+        stack.add(((Application) node).getLeft());
+      }
+    }
+    return occurrences;
+  }
+}
@@ -2,21 +2,43 @@ package lambda.actions;
 
 import lambda.utils.LambdaTermVisitor;
 import lambda.utils.Position;
+import lambda.parser.Definitions;
 import lambda.LambdaTerm;
 import lambda.Lambda;
 import lambda.Application;
 import lambda.Variable;
 
+import java.util.ArrayList;
+
 /**
  * Returns the head redex.
  */
 public class HeadRedex implements LambdaTermVisitor<Position,Object> {
+  private Definitions definitions;
+  private ArrayList<String> binders = new ArrayList<String>();
+
+  public HeadRedex() {
+  }
+
+  /**
+   * Also finds delta redexes: free names of definitions which are applied,
+   * or whose definition is not normal.
+   *
+   * @param definitions definitions kept as constants
+   */
+  public HeadRedex(Definitions definitions) {
+    this.definitions = definitions;
+  }
+
   public Position visit(LambdaTerm term, Object o) {
     throw new RuntimeException("Unkown LambdaTerm.");
   }
 
   public Position visit(Lambda lambda, Object o) {
+    binders.add(lambda.getName());
     Position headRedex = lambda.getTerm().visit(this, o);
+    binders.remove(binders.size() - 1);
+
     if(headRedex != null) headRedex.add(0);
     return headRedex;
   }
@@ -26,6 +48,7 @@ public class HeadRedex implements LambdaTermVisitor<Position,Object> {
     LambdaTerm right = application.getRight();
 
     if(application.isRedex()) return new Position();
+    if(definitions != null) return visitWithConstants(left, right, o);
     
     Position headRedex = null;
     if(left.hasRedexDeep()) {
@@ -42,7 +65,31 @@ public class HeadRedex implements LambdaTermVisitor<Position,Object> {
     return null;
   }
 
+  private Position visitWithConstants(LambdaTerm left, LambdaTerm right, Object o) {
+    Position headRedex;
+    if(isConstant(left)) {
+      headRedex = new Position();
+    } else {
+      headRedex = left.visit(this, o);
+    }
+    if(headRedex != null) {
+      headRedex.add(0);
+      return headRedex;
+    }
+
+    headRedex = right.visit(this, o);
+    if(headRedex != null) headRedex.add(1);
+    return headRedex;
+  }
+
   public Position visit(Variable variable, Object o) {
+    if(definitions != null && isConstant(variable) && !definitions.isNormal(variable.getName())) return new Position();
     return null;
   }
+
+  private boolean isConstant(LambdaTerm term) {
+    if(!(term instanceof Variable)) return false;
+    String name = ((Variable) term).getName();
+    return definitions.get(name) != null && !binders.contains(name);
+  }
 }
@@ -0,0 +1,44 @@
+package lambda.actions;
+
+import lambda.utils.LambdaTermVisitor;
+import lambda.utils.Position;
+import lambda.LambdaTerm;
+import lambda.Lambda;
+import lambda.Application;
+import lambda.Variable;
+
+import java.util.ArrayList;
+
+/**
+ * Returns the positions of all redexes, leftmost-outermost first.
+ */
+public class Redexes implements LambdaTermVisitor<ArrayList<Position>,Object> {
+  public ArrayList<Position> visit(LambdaTerm term, Object o) {
+    throw new RuntimeException("Unkown LambdaTerm.");
+  }
+
+  public ArrayList<Position> visit(Lambda lambda, Object o) {
+    ArrayList<Position> redexes = lambda.getTerm().visit(this, o);
+    for(Position redex : redexes) redex.add(0);
+    return redexes;
+  }
+
+  public ArrayList<Position> visit(Application application, Object o) {
+    ArrayList<Position> redexes = new ArrayList<Position>();
+    if(application.isRedex()) redexes.add(new Position());
+
+    for(Position redex : application.getLeft().visit(this, o)) {
+      redex.add(0);
+      redexes.add(redex);
+    }
+    for(Position redex : application.getRight().visit(this, o)) {
+      redex.add(1);
+      redexes.add(redex);
+    }
+    return redexes;
+  }
+
+  public ArrayList<Position> visit(Variable variable, Object o) {
+    return new ArrayList<Position>();
+  }
+}
@@ -6,11 +6,54 @@ import lambda.Application;
 import lambda.Variable;
 import lambda.utils.Position;
 import lambda.utils.LambdaTermVisitor;
+import lambda.utils.NameSupply;
+import lambda.parser.Definitions;
 
 /**
- * Rewrite a given position of a term.
+ * Rewrite a given position of a term. The position is only read, so it
+ * need not be copied.
  */
 public class Rewrite implements LambdaTermVisitor<LambdaTerm, Position> {
+  private Definitions definitions;
+  private NameSupply names;
+  private int depth = 0;  // steps of the position taken so far
+  private String unfolded;
+
+  public Rewrite() {
+  }
+
+  /**
+   * Also unfolds constants (delta reduction).
+   *
+   * @param definitions definitions kept as constants
+   */
+  public Rewrite(Definitions definitions) {
+    this.definitions = definitions;
+  }
+
+  /**
+   * Contracts redexes without alpha renaming. The term must keep the
+   * Barendregt convention, see LambdaTerm.instantiate.
+   *
+   * @param names name supply the term was copied with
+   */
+  public Rewrite(NameSupply names) {
+    this.names = names;
+  }
+
+  public Rewrite(Definitions definitions, NameSupply names) {
+    this.definitions = definitions;
+    this.names = names;
+  }
+
+  /**
+   * @return the name of the definition the rewrite unfolded, or null for
+   *         a beta step
+   */
+  public String getUnfolded() {
+    return unfolded;
+  }
+
   public LambdaTerm visit(LambdaTerm term, Position position) {
     throw new RuntimeException("Unkown LambdaTerm.");
   }
@@ -18,10 +61,11 @@ public class Rewrite implements LambdaTermVisitor<LambdaTerm, Position> {
   public LambdaTerm visit(Lambda lambda, Position position) {
     lambda.setExpanded(true);
 
-    if(position.length() == 0) return lambda;
+    if(depth == position.length()) return lambda;
 
-    position.remove();
+    depth++;
     lambda.setTerm(lambda.getTerm().visit(this, position));
+    depth--;
 
     lambda.updateHash();
     return lambda;
@@ -33,14 +77,16 @@ public class Rewrite implements LambdaTermVisitor<LambdaTerm, Position> {
     LambdaTerm left = application.getLeft();
     LambdaTerm right = application.getRight();
 
-    if(position.length() == 0) {
-      if(application.isRedex()) return application.rewrite(); else return application; 
+    if(depth == position.length()) {
+      if(!application.isRedex()) return application;
+      return names != null ? application.rewrite(names) : application.rewrite();
     } else {
-      if(position.remove() == 0) {
+      if(position.get(depth++) == 0) {
         application.setLeft(left.visit(this, position));
       } else {
         application.setRight(right.visit(this, position));
       }
+      depth--;
 
       application.updateHash();
       return application;
@@ -49,6 +95,16 @@ public class Rewrite implements LambdaTermVisitor<LambdaTerm, Position> {
 
   public LambdaTerm visit(Variable variable, Position position) {
     variable.setExpanded(true);
+
+    if(definitions != null && depth == position.length()) {
+      // a definition which was normalized before is unfolded to its normal form
+      LambdaTerm definition = definitions.getNormalForm(variable.getName());
+      if(definition == null) definition = definitions.get(variable.getName());
+      if(definition != null) {
+        unfolded = variable.getName();
+        return names != null ? definition.copyFresh(names) : definition.copy();
+      }
+    }
     
     return variable;
   }
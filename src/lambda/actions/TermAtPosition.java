@@ -8,28 +8,37 @@ import lambda.utils.Position;
 import lambda.utils.LambdaTermVisitor;
 
 /**
- * Returns the term at the given position.
+ * Returns the term at the given position. The position is only read, so
+ * it need not be copied.
  */
 public class TermAtPosition implements LambdaTermVisitor<LambdaTerm, Position> {
+  private int depth = 0;  // steps of the position taken so far
+
   public LambdaTerm visit(LambdaTerm term, Position position) {
     throw new RuntimeException("Unkown LambdaTerm.");
   }
 
   public LambdaTerm visit(Lambda lambda, Position position) {
-    if(position.length() == 0) return lambda;
+    if(depth == position.length()) return lambda;
 
-    position.remove();
-    return  lambda.getTerm().visit(this, position);
+    depth++;
+    LambdaTerm term = lambda.getTerm().visit(this, position);
+    depth--;
+    return term;
   }
 
   public LambdaTerm visit(Application application, Position position) {
     LambdaTerm left = application.getLeft();
     LambdaTerm right = application.getRight();
 
-    if(position.length() == 0) {
+    if(depth == position.length()) {
       return application;
     } else {
-      return  position.remove() == 0 ? left.visit(this, position) : right.visit(this, position);
+      LambdaTerm next = position.get(depth) == 0 ? left : right;
+      depth++;
+      LambdaTerm term = next.visit(this, position);
+      depth--;
+      return term;
     }
   }
 
@@ -0,0 +1,17 @@
+package lambda.debug;
+
+import lambda.LambdaTerm;
+import lambda.utils.Position;
+
+/**
+ * Condition on which a reduction run stops.
+ */
+public interface Breakpoint {
+  /**
+   * Checks the breakpoint before a step.
+   *
+   * @param term current term
+   * @param redex position of the next redex
+   */
+  public boolean isHit(LambdaTerm term, Position redex);
+}
@@ -0,0 +1,117 @@
+package lambda.debug;
+
+import lambda.Application;
+import lambda.Lambda;
+import lambda.LambdaTerm;
+import lambda.Variable;
+import lambda.utils.Position;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The available breakpoints.
+ */
+public final class Breakpoints {
+  private Breakpoints() {
+  }
+
+  /**
+   * Stops when the head of the term is the constant with the given name,
+   * i.e. when the definition is about to be unfolded.
+   */
+  public static Breakpoint head(final String name) {
+    return new Breakpoint() {
+      public boolean isHit(LambdaTerm term, Position redex) {
+        HashSet<String> binders = new HashSet<String>();
+        while(term instanceof Lambda) {
+          binders.add(((Lambda) term).getName());
+          term = ((Lambda) term).getTerm();
+        }
+        while(term instanceof Application) term = ((Application) term).getLeft();
+
+        return term instanceof Variable && ((Variable) term).getName().equals(name) && !binders.contains(name);
+      }
+
+      public String toString() {
+        return "head " + name;
+      }
+    };
+  }
+
+  /**
+   * Stops when the term has more than the given number of nodes.
+   */
+  public static Breakpoint size(final int maxSize) {
+    return new Breakpoint() {
+      public boolean isHit(LambdaTerm term, Position redex) {
+        return size(term, maxSize) > maxSize;
+      }
+
+      public String toString() {
+        return "size " + maxSize;
+      }
+    };
+  }
+
+  /**
+   * Stops when the path to the next redex matches a regular expression.
+   * The path lists the steps from the root, 0 into an abstraction body or
+   * function and 1 into an argument, e.g. 0*1 for the argument of the head.
+   */
+  public static Breakpoint redex(final String pattern) {
+    final Pattern compiled = Pattern.compile(pattern);
+    return new Breakpoint() {
+      public boolean isHit(LambdaTerm term, Position redex) {
+        StringBuilder path = new StringBuilder();
+        for(int depth = 0; depth < redex.length(); depth++) path.append(redex.get(depth));
+        return compiled.matcher(path).matches();
+      }
+
+      public String toString() {
+        return "redex " + pattern;
+      }
+    };
+  }
+
+  /**
+   * Parses a comma separated list like "head FIX, size 5000, redex 0*1".
+   */
+  public static List<Breakpoint> parse(String string) {
+    ArrayList<Breakpoint> breakpoints = new ArrayList<Breakpoint>();
+    for(String entry : string.split(",")) {
+      entry = entry.trim();
+      if(entry.isEmpty()) continue;
+
+      String[] parts = entry.split("\\s+", 2);
+      if(parts.length < 2) throw new IllegalArgumentException("Breakpoint without argument: " + entry);
+      if(parts[0].equals("head")) breakpoints.add(head(parts[1]));
+      else if(parts[0].equals("size")) breakpoints.add(size(Integer.parseInt(parts[1])));
+      else if(parts[0].equals("redex")) breakpoints.add(redex(parts[1]));
+      else throw new IllegalArgumentException("Unknown breakpoint: " + entry);
+    }
+    return breakpoints;
+  }
+
+  /**
+   * Counts the nodes of a term, but stops counting above the limit.
+   */
+  private static int size(LambdaTerm term, int limit) {
+    int size = 0;
+    ArrayList<LambdaTerm> work = new ArrayList<LambdaTerm>();
+    work.add(term);
+    while(!work.isEmpty() && size <= limit) {
+      LambdaTerm current = work.remove(work.size() - 1);
+      size++;
+      if(current instanceof Lambda) {
+        work.add(((Lambda) current).getTerm());
+      } else if(current instanceof Application) {
+        work.add(((Application) current).getRight());
+        work.add(((Application) current).getLeft());
+      }
+    }
+    return size;
+  }
+}
@@ -0,0 +1,107 @@
+package lambda.debug;
+
+import lambda.LambdaTerm;
+import lambda.actions.Growth;
+import lambda.actions.HeadRedex;
+import lambda.actions.Rewrite;
+import lambda.engine.Governor;
+import lambda.engine.Limit;
+import lambda.parser.Definition;
+import lambda.parser.Definitions;
+import lambda.utils.NameSupply;
+import lambda.utils.Position;
+
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Runs the head reduction of the calculator until a breakpoint is hit.
+ * Steps are done as by the head reduction engine, without alpha renaming
+ * and without the messages of the step by step calculator.
+ */
+public class Debugger {
+  private Definitions definitions;
+  private List<Breakpoint> breakpoints;
+
+  /**
+   * @param definitions definitions kept as constants
+   * @param breakpoints breakpoints checked before every step but the first
+   */
+  public Debugger(Definitions definitions, List<Breakpoint> breakpoints) {
+    this.definitions = definitions;
+    this.breakpoints = breakpoints;
+  }
+
+  /**
+   * Reduces a copy of the term until a breakpoint is hit, the normal form
+   * is reached or a limit of the governor is reached. Interrupting the
+   * thread stops the run like a limit.
+   */
+  public Stop run(LambdaTerm term, Governor governor) {
+    NameSupply names = new NameSupply(term);
+    for(Definition definition : definitions.getDefinitions()) {
+      names.reserve(definition.getName());
+      HashSet<String> freeVariables = new HashSet<String>();
+      definition.getTerm().getFreeVariables(freeVariables);
+      for(String freeVariable : freeVariables) names.reserve(freeVariable);
+    }
+    term = term.copyFresh(names);
+
+    governor.grow(Growth.size(term));
+    while(true) {
+      Position position = term.visit(new HeadRedex(definitions), null);
+      if(position == null) return new Stop(term, governor.getSteps(), null, null);
+
+      if(governor.getSteps() > 0) {
+        for(Breakpoint breakpoint : breakpoints) {
+          if(breakpoint.isHit(term, position)) return new Stop(term, governor.getSteps(), breakpoint, null);
+        }
+      }
+      if(!governor.step() || !governor.grow(Growth.of(term, position, definitions))) {
+        return new Stop(term, governor.getSteps(), null, governor.getExceeded());
+      }
+
+      term = term.visit(new Rewrite(definitions, names), position);
+    }
+  }
+
+  /**
+   * Where a run stopped.
+   */
+  public static class Stop {
+    private LambdaTerm term;
+    private int steps;
+    private Breakpoint breakpoint;
+    private Limit limit;
+
+    Stop(LambdaTerm term, int steps, Breakpoint breakpoint, Limit limit) {
+      this.term = term;
+      this.steps = steps;
+      this.breakpoint = breakpoint;
+      this.limit = limit;
+    }
+
+    public LambdaTerm getTerm() {
+      return term;
+    }
+
+    public int getSteps() {
+      return steps;
+    }
+
+    /**
+     * @return the breakpoint which was hit, or null at the normal form or
+     *         at a limit
+     */
+    public Breakpoint getBreakpoint() {
+      return breakpoint;
+    }
+
+    /**
+     * @return the limit which stopped the run, or null
+     */
+    public Limit getLimit() {
+      return limit;
+    }
+  }
+}
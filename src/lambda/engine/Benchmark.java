@@ -0,0 +1,62 @@
+package lambda.engine;
+
+import lambda.LambdaTerm;
+import lambda.engine.gmachine.GMachineEngine;
+import lambda.parser.Definitions;
+import lambda.parser.LambdaTermParser;
+import lambda.utils.TermPrinter;
+
+/**
+ * Compares the engines on a few standard terms. The G-machine keeps the
+ * prelude folded, so it runs the compiled definitions.
+ *
+ * Usage: Benchmark [engine ...]
+ */
+public class Benchmark {
+  private static final String prelude =
+          "ZERO = \\f.\\x.x;" +
+          "SUCC = \\n.\\f.\\x.f (n f x);" +
+          "PLUS = \\m.\\n.\\f.\\x.m f (n f x);" +
+          "MULT = \\m.\\n.\\f.m (n f);" +
+          "POW = \\b.\\e.e b;" +
+          "PRED = \\n.\\f.\\x.n (\\g.\\h.h (g f)) (\\u.x) (\\u.u);" +
+          "TWO = SUCC (SUCC ZERO);" +
+          "THREE = SUCC TWO;";
+
+  private static final String[] terms = {
+          "POW TWO THREE",
+          "MULT THREE (PLUS THREE TWO)",
+          "PRED (POW THREE TWO)",
+          "POW TWO (PLUS TWO TWO)",
+          "POW THREE THREE f x",
+  };
+
+  private static final int maxSteps = 10000000;
+  private static final int repetitions = 5;
+
+  public static void main(String[] args) {
+    String[] names = args.length > 0 ? args : Engines.getNames().toArray(new String[0]);
+
+    for(String source : terms) {
+      Definitions definitions = LambdaTermParser.parse(prelude + "Init = " + source + ";");
+      LambdaTerm term = definitions.get("Init");
+      Definitions folded = LambdaTermParser.parse(prelude + "Init = " + source + ";", false);
+      System.out.println(source);
+
+      for(String name : names) {
+        Engine engine = name.equals("gmachine") ? new GMachineEngine(folded) : Engines.get(name);
+        LambdaTerm input = name.equals("gmachine") ? folded.get("Init") : term;
+        Result result = null;
+        long best = Long.MAX_VALUE;
+        for(int i = 0; i < repetitions; i++) {
+          long start = System.nanoTime();
+          result = engine.normalize(input, new Governor(maxSteps));
+          best = Math.min(best, System.nanoTime() - start);
+        }
+        String normalForm = result.isNormalForm() ? new TermPrinter(definitions, true, 200, TermPrinter.UNLIMITED).toString(result.getTerm()) : "step limit";
+        if(result instanceof PortfolioResult) normalForm += "  (" + ((PortfolioResult) result).getWinner() + ")";
+        System.out.println(String.format("  %-10s %10.3f ms %10d steps  %s", name, best / 1e6, result.getSteps(), normalForm));
+      }
+    }
+  }
+}
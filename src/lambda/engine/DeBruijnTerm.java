@@ -0,0 +1,233 @@
+package lambda.engine;
+
+import lambda.LambdaTerm;
+import lambda.Lambda;
+import lambda.Application;
+import lambda.Variable;
+
+import java.util.ArrayList;
+
+/**
+ * Immutable lambda term with de Bruijn indices for bound variables. Equal
+ * terms are exactly the alpha equivalent ones. Conversions use explicit
+ * stacks, so they work on terms of any depth.
+ */
+public final class DeBruijnTerm {
+  public static final int BOUND = 0;
+  public static final int FREE = 1;
+  public static final int ABSTRACTION = 2;
+  public static final int APPLICATION = 3;
+
+  private final int tag;
+  private final int index;
+  private final String name;
+  private final DeBruijnTerm left, right;
+  private final int hash;
+
+  private DeBruijnTerm(int tag, int index, String name, DeBruijnTerm left, DeBruijnTerm right, int hash) {
+    this.tag = tag;
+    this.index = index;
+    this.name = name;
+    this.left = left;
+    this.right = right;
+    this.hash = hash;
+  }
+
+  public static DeBruijnTerm bound(int index) {
+    return new DeBruijnTerm(BOUND, index, null, null, null, 3 + 11*index);
+  }
+
+  public static DeBruijnTerm free(String name) {
+    return new DeBruijnTerm(FREE, 0, name, null, null, name.hashCode());
+  }
+
+  /**
+   * @param name binder name, only kept as a hint for read back
+   */
+  public static DeBruijnTerm abstraction(String name, DeBruijnTerm body) {
+    return new DeBruijnTerm(ABSTRACTION, 0, name, body, null, 13*body.hash + 5);
+  }
+
+  public static DeBruijnTerm application(DeBruijnTerm left, DeBruijnTerm right) {
+    return new DeBruijnTerm(APPLICATION, 0, null, left, right, 7*left.hash + 21*right.hash + 31);
+  }
+
+  public int getTag() {
+    return tag;
+  }
+
+  /**
+   * @return number of binders between a bound variable and its binder
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  /**
+   * @return name of a free variable or binder name of an abstraction
+   */
+  public String getName() {
+    return name;
+  }
+
+  public DeBruijnTerm getBody() {
+    return left;
+  }
+
+  public DeBruijnTerm getLeft() {
+    return left;
+  }
+
+  public DeBruijnTerm getRight() {
+    return right;
+  }
+
+  public int hashCode() {
+    return hash;
+  }
+
+  public boolean equals(Object obj) {
+    if(!(obj instanceof DeBruijnTerm)) return false;
+
+    ArrayList<DeBruijnTerm> pending = new ArrayList<DeBruijnTerm>();
+    pending.add(this);
+    pending.add((DeBruijnTerm) obj);
+    while(!pending.isEmpty()) {
+      DeBruijnTerm b = pending.remove(pending.size() - 1);
+      DeBruijnTerm a = pending.remove(pending.size() - 1);
+      if(a == b) continue;
+      if(a.hash != b.hash || a.tag != b.tag) return false;
+
+      switch(a.tag) {
+        case BOUND:
+          if(a.index != b.index) return false;
+          break;
+        case FREE:
+          if(!a.name.equals(b.name)) return false;
+          break;
+        case ABSTRACTION:
+          pending.add(a.left);
+          pending.add(b.left);
+          break;
+        case APPLICATION:
+          pending.add(a.left);
+          pending.add(b.left);
+          pending.add(a.right);
+          pending.add(b.right);
+          break;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Converts a named term.
+   */
+  public static DeBruijnTerm fromTerm(LambdaTerm term) {
+    ArrayList<String> scope = new ArrayList<String>();
+    ArrayList<Object> work = new ArrayList<Object>();
+    ArrayList<DeBruijnTerm> results = new ArrayList<DeBruijnTerm>();
+
+    work.add(term);
+    while(!work.isEmpty()) {
+      Object item = work.remove(work.size() - 1);
+
+      if(item instanceof Variable) {
+        String name = ((Variable) item).getName();
+        int index = scope.lastIndexOf(name);
+        results.add(index >= 0 ? bound(scope.size() - 1 - index) : free(name));
+      } else if(item instanceof Lambda) {
+        Lambda lambda = (Lambda) item;
+        scope.add(lambda.getName());
+        work.add(new Exit(lambda.getName()));
+        work.add(lambda.getTerm());
+      } else if(item instanceof Application) {
+        Application application = (Application) item;
+        work.add(new Exit(null));
+        work.add(application.getRight());
+        work.add(application.getLeft());
+      } else {
+        Exit exit = (Exit) item;
+        DeBruijnTerm last = results.remove(results.size() - 1);
+        if(exit.name != null) {
+          scope.remove(scope.size() - 1);
+          results.add(abstraction(exit.name, last));
+        } else {
+          results.add(application(results.remove(results.size() - 1), last));
+        }
+      }
+    }
+    return results.get(0);
+  }
+
+  /**
+   * Converts back to a named term.
+   *
+   * @param names supply of binder names which do not capture free variables
+   */
+  public LambdaTerm toTerm(Names names) {
+    ArrayList<String> scope = new ArrayList<String>();
+    ArrayList<Object> work = new ArrayList<Object>();
+    ArrayList<LambdaTerm> results = new ArrayList<LambdaTerm>();
+
+    work.add(this);
+    while(!work.isEmpty()) {
+      Object item = work.remove(work.size() - 1);
+
+      if(item instanceof Exit) {
+        Exit exit = (Exit) item;
+        LambdaTerm last = results.remove(results.size() - 1);
+        if(exit.name != null) {
+          scope.remove(scope.size() - 1);
+          names.release(exit.name);
+          results.add(new Lambda(exit.name, last));
+        } else {
+          results.add(new Application(results.remove(results.size() - 1), last));
+        }
+        continue;
+      }
+
+      DeBruijnTerm term = (DeBruijnTerm) item;
+      switch(term.tag) {
+        case BOUND:
+          results.add(new Variable(scope.get(scope.size() - 1 - term.index)));
+          break;
+        case FREE:
+          results.add(new Variable(term.name));
+          break;
+        case ABSTRACTION:
+          String name = names.fresh(term.name);
+          scope.add(name);
+          work.add(new Exit(name));
+          work.add(term.left);
+          break;
+        case APPLICATION:
+          work.add(new Exit(null));
+          work.add(term.right);
+          work.add(term.left);
+          break;
+      }
+    }
+    return results.get(0);
+  }
+
+  public String toString() {
+    switch(tag) {
+      case BOUND: return "#" + index;
+      case FREE: return name;
+      case ABSTRACTION: return "\u03BB." + left;
+      default: return "(" + left + ")(" + right + ")";
+    }
+  }
+
+  /**
+   * Marks the end of an abstraction (with its name) or application.
+   */
+  private static class Exit {
+    String name;
+
+    Exit(String name) {
+      this.name = name;
+    }
+  }
+}
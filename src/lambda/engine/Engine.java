@@ -0,0 +1,23 @@
+package lambda.engine;
+
+import lambda.LambdaTerm;
+
+/**
+ * Reduction engine computing beta normal forms.
+ */
+public interface Engine {
+  /**
+   * Name under which the engine can be selected.
+   */
+  public String getName();
+
+  /**
+   * Reduces a term to beta normal form. The given term is not modified.
+   * Interrupting the thread stops the reduction like a limit.
+   *
+   * @param term term to normalize
+   * @param governor limits of the reduction, used for this reduction only
+   * @return the normal form, or a result without term telling which limit was reached
+   */
+  public Result normalize(LambdaTerm term, Governor governor);
+}
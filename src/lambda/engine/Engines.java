@@ -0,0 +1,52 @@
+package lambda.engine;
+
+import lambda.engine.cek.CekEngine;
+import lambda.engine.gmachine.GMachineEngine;
+import lambda.engine.jit.JitEngine;
+import lambda.engine.kn.KnEngine;
+import lambda.engine.ski.SkiEngine;
+import lambda.engine.store.StoreEngine;
+
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+/**
+ * Available engines. The default engine is chosen by the system property
+ * lambda.engine.
+ */
+public final class Engines {
+  private static final LinkedHashMap<String, Engine> engines = new LinkedHashMap<String, Engine>();
+
+  static {
+    register(new HeadReductionEngine());
+    register(new SkiEngine());
+    register(new GMachineEngine());
+    register(new CekEngine());
+    register(new KnEngine());
+    register(new JitEngine());
+    register(new StoreEngine());
+    register(new Portfolio("portfolio", engines.values().toArray(new Engine[0])));
+    register(new TypedEngine("auto", get("cek"), get("head")));
+  }
+
+  private Engines() {
+  }
+
+  public static void register(Engine engine) {
+    engines.put(engine.getName(), engine);
+  }
+
+  public static Engine get(String name) {
+    Engine engine = engines.get(name);
+    if(engine == null) throw new IllegalArgumentException("Unknown engine: " + name);
+    return engine;
+  }
+
+  public static Set<String> getNames() {
+    return engines.keySet();
+  }
+
+  public static Engine getDefault() {
+    return get(System.getProperty("lambda.engine", "auto"));
+  }
+}
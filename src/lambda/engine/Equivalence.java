@@ -0,0 +1,90 @@
+package lambda.engine;
+
+import lambda.LambdaTerm;
+import lambda.engine.kn.BohmTree;
+
+import java.util.ArrayList;
+
+/**
+ * Beta equivalence of two terms, decided within a step budget.
+ */
+public enum Equivalence {
+  EQUAL, DIFFERENT, UNKNOWN;
+
+  private static final int initialSlice = 1000;
+
+  /**
+   * Compares two terms. Alpha-equivalent terms are recognized by their hash
+   * first. Otherwise the Böhm trees of both terms are computed lazily and
+   * side by side, and the comparison stops at the first node where the
+   * binders, heads or numbers of arguments differ. Terms with equal finite
+   * Böhm trees are equal; the budget runs out on infinite ones.
+   *
+   * @param maxSteps beta steps shared by both terms
+   */
+  public static Equivalence of(LambdaTerm term, LambdaTerm other, int maxSteps) {
+    if(term.hashCode() == other.hashCode() && term.equals(other)) return EQUAL;
+
+    Budget budget = new Budget(maxSteps);
+    BohmTree[] roots = budget.headNormalForms(null, null, 0, term, other);
+    if(roots == null) return UNKNOWN;
+
+    ArrayList<BohmTree[]> pairs = new ArrayList<BohmTree[]>();
+    pairs.add(roots);
+    while(!pairs.isEmpty()) {
+      BohmTree[] pair = pairs.remove(pairs.size() - 1);
+      BohmTree tree = pair[0];
+      BohmTree otherTree = pair[1];
+
+      if(tree.getBinders().length != otherTree.getBinders().length) return DIFFERENT;
+      if(tree.getArgumentCount() != otherTree.getArgumentCount()) return DIFFERENT;
+      if(tree.isHeadFree() != otherTree.isHeadFree()) return DIFFERENT;
+      if(tree.isHeadFree() ? !tree.getHeadName().equals(otherTree.getHeadName()) : tree.getHeadLevel() != otherTree.getHeadLevel()) return DIFFERENT;
+
+      // the first argument is compared first
+      for(int i = tree.getArgumentCount() - 1; i >= 0; i--) {
+        BohmTree[] arguments = budget.headNormalForms(tree, otherTree, i, null, null);
+        if(arguments == null) return UNKNOWN;
+        pairs.add(arguments);
+      }
+    }
+    return EQUAL;
+  }
+
+  /**
+   * Shared budget. Head normal forms of the two sides are computed with
+   * doubling slices of the budget, so a side without head normal form
+   * cannot use up the budget before the other side had its turn.
+   */
+  private static class Budget {
+    private int remaining;
+
+    Budget(int remaining) {
+      this.remaining = remaining;
+    }
+
+    /**
+     * Computes a pair of head normal forms, either of two terms or of two
+     * arguments of Böhm tree nodes.
+     *
+     * @return the pair or null if the budget ran out
+     */
+    BohmTree[] headNormalForms(BohmTree parent, BohmTree otherParent, int i, LambdaTerm term, LambdaTerm other) {
+      BohmTree[] pair = new BohmTree[2];
+      for(int slice = initialSlice; remaining > 0; slice *= 2) {
+        if(pair[0] == null) pair[0] = headNormalForm(parent, i, term, slice);
+        if(pair[1] == null) pair[1] = headNormalForm(otherParent, i, other, slice);
+        if(pair[0] != null && pair[1] != null) return pair;
+        if(slice > Integer.MAX_VALUE / 2) break;
+      }
+      return null;
+    }
+
+    private BohmTree headNormalForm(BohmTree parent, int i, LambdaTerm term, int slice) {
+      int maxSteps = Math.min(slice, remaining);
+      BohmTree tree = parent != null ? parent.getArgument(i, maxSteps) : BohmTree.of(term, maxSteps);
+      remaining -= tree != null ? tree.getSteps() : maxSteps;
+      return tree;
+    }
+  }
+}
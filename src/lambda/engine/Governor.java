@@ -0,0 +1,128 @@
+package lambda.engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Limits of one reduction: beta steps, term size, a deadline and the bytes
+ * the reducing thread may allocate. Engines report every step and the
+ * nodes they add or free; once a limit is exceeded every further step is
+ * refused and the result tells which limit stopped the reduction.
+ *
+ * Engines which build the term track its size in nodes. Environment
+ * machines have no term until read back and are held by the allocation
+ * budget instead. A governor serves one reduction at a time, see fork.
+ */
+public class Governor {
+  public static final long UNLIMITED = Long.MAX_VALUE;
+
+  // steps between checks of the clock and of the allocated bytes
+  private static final int CHECK_INTERVAL = 1024;
+
+  private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+  private int maxSteps;
+  private long maxSize;
+  private long deadline;
+  private long maxAllocation;
+
+  private int steps = 0;
+  private long size = 0;
+  private Limit exceeded;
+
+  // allocation is counted for the thread which does the first step
+  private long thread = -1;
+  private long allocated;
+
+  public Governor(int maxSteps) {
+    this(maxSteps, UNLIMITED, UNLIMITED, UNLIMITED);
+  }
+
+  /**
+   * @param maxSteps number of beta steps
+   * @param maxSize number of nodes of the term
+   * @param timeout milliseconds from now after which the reduction stops
+   * @param maxAllocation bytes the reducing thread may allocate
+   */
+  public Governor(int maxSteps, long maxSize, long timeout, long maxAllocation) {
+    this.maxSteps = maxSteps;
+    this.maxSize = maxSize;
+    this.deadline = timeout == UNLIMITED ? UNLIMITED : System.nanoTime() + timeout * 1000000;
+    this.maxAllocation = maxAllocation;
+  }
+
+  /**
+   * @return a governor with the same limits and deadline for another
+   *         reduction, e.g. on another thread
+   */
+  public Governor fork() {
+    Governor governor = new Governor(maxSteps, maxSize, UNLIMITED, maxAllocation);
+    governor.deadline = deadline;
+    return governor;
+  }
+
+  /**
+   * Counts a beta step before it is done.
+   *
+   * @return whether the step may be done
+   */
+  public boolean step() {
+    if(exceeded != null) return false;
+    if(steps == maxSteps) return exceed(Limit.STEPS);
+    if(Thread.currentThread().isInterrupted()) return exceed(Limit.INTERRUPTED);
+    if(steps % CHECK_INTERVAL == 0 && !checkResources()) return false;
+    steps++;
+    return true;
+  }
+
+  /**
+   * Changes the size of the term.
+   *
+   * @param nodes number of nodes added, negative if nodes were freed
+   * @return whether the term is within the size limit
+   */
+  public boolean grow(long nodes) {
+    size += nodes;
+    if(size > maxSize && exceeded == null) exceed(Limit.SIZE);
+    return exceeded == null;
+  }
+
+  private boolean checkResources() {
+    if(deadline != UNLIMITED && System.nanoTime() - deadline > 0) return exceed(Limit.TIME);
+    if(maxAllocation == UNLIMITED || !(threads instanceof com.sun.management.ThreadMXBean)) return true;
+
+    com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+    long id = Thread.currentThread().getId();
+    if(thread != id) {
+      thread = id;
+      allocated = allocations.getThreadAllocatedBytes(id);
+      return true;
+    }
+    if(allocations.getThreadAllocatedBytes(id) - allocated > maxAllocation) return exceed(Limit.MEMORY);
+    return true;
+  }
+
+  private boolean exceed(Limit limit) {
+    exceeded = limit;
+    return false;
+  }
+
+  public int getSteps() {
+    return steps;
+  }
+
+  public int getMaxSteps() {
+    return maxSteps;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  /**
+   * @return the limit which stopped the reduction, or null
+   */
+  public Limit getExceeded() {
+    return exceeded;
+  }
+}
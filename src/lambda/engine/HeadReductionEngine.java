@@ -0,0 +1,32 @@
+package lambda.engine;
+
+import lambda.LambdaTerm;
+import lambda.actions.Growth;
+import lambda.actions.HeadRedex;
+import lambda.actions.Rewrite;
+import lambda.utils.NameSupply;
+import lambda.utils.Position;
+
+/**
+ * Tree rewriting of the head redex, as done by the calculator step by step.
+ */
+public class HeadReductionEngine implements Engine {
+  public String getName() {
+    return "head";
+  }
+
+  public Result normalize(LambdaTerm term, Governor governor) {
+    // unique binders, so that no step needs alpha renaming
+    NameSupply names = new NameSupply(term);
+    term = term.copyFresh(names);
+
+    governor.grow(Growth.size(term));
+    while(true) {
+      Position position = term.visit(new HeadRedex(), null);
+      if(position == null) return new Result(term, governor.getSteps());
+      if(!governor.step() || !governor.grow(Growth.of(term, position, null))) return new Result(null, governor.getSteps(), governor.getExceeded());
+
+      term = term.visit(new Rewrite(names), position);
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package lambda.engine;
+
+/**
+ * Why a reduction stopped before reaching a normal form.
+ */
+public enum Limit {
+  STEPS("step limit"),
+  SIZE("size limit"),
+  TIME("time limit"),
+  MEMORY("allocation limit"),
+  STACK("stack exhausted"),
+  INTERRUPTED("interrupted");
+
+  private String description;
+
+  Limit(String description) {
+    this.description = description;
+  }
+
+  public String toString() {
+    return description;
+  }
+}
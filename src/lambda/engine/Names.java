@@ -0,0 +1,50 @@
+package lambda.engine;
+
+import lambda.LambdaTerm;
+
+import java.util.HashSet;
+
+/**
+ * Binder names for terms read back from an engine.
+ */
+public class Names {
+  private HashSet<String> used = new HashSet<String>();
+
+  /**
+   * @param term term whose free variables must not be captured
+   */
+  public Names(LambdaTerm term) {
+    term.getFreeVariables(used);
+  }
+
+  /**
+   * Returns a name that is neither free nor in scope and puts it in scope.
+   *
+   * @param hint preferred name
+   * @return fresh name
+   */
+  public String fresh(String hint) {
+    if(!used.contains(hint)) {
+      used.add(hint);
+      return hint;
+    }
+
+    // cut off number suffix
+    int index = hint.length() - 1;
+    while(index >= 0 && Character.isDigit(hint.charAt(index))) index--;
+    String base = hint.substring(0, index+1);
+
+    int suffix = 0;
+    while(used.contains(base + suffix)) suffix++;
+    used.add(base + suffix);
+
+    return base + suffix;
+  }
+
+  /**
+   * Takes a name obtained by fresh out of scope again.
+   */
+  public void release(String name) {
+    used.remove(name);
+  }
+}
@@ -0,0 +1,108 @@
+package lambda.engine;
+
+import lambda.LambdaTerm;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.Callable;
+
+/**
+ * Races several engines on the same term, each on its own thread and its
+ * own copy of the term. The first normal form wins and the other engines
+ * are interrupted, which stops them at their next step.
+ */
+public class Portfolio implements Engine {
+  private static final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "portfolio");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private String name;
+  private Engine[] engines;
+  private LinkedHashMap<String, Integer> wins = new LinkedHashMap<String, Integer>();
+
+  public Portfolio(String name, Engine[] engines) {
+    this.name = name;
+    this.engines = engines;
+    for(Engine engine : engines) wins.put(engine.getName(), 0);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Engine[] getEngines() {
+    return engines;
+  }
+
+  /**
+   * @return how often each engine found the normal form first
+   */
+  public synchronized Map<String, Integer> getWins() {
+    return new LinkedHashMap<String, Integer>(wins);
+  }
+
+  /**
+   * Every engine gets a fork of the governor, so they share the deadline
+   * but not the counters.
+   */
+  public Result normalize(LambdaTerm term, Governor governor) {
+    ExecutorCompletionService<Result> race = new ExecutorCompletionService<Result>(executor);
+    ArrayList<Future<Result>> futures = new ArrayList<Future<Result>>();
+    final LambdaTerm[] copies = new LambdaTerm[engines.length];
+    for(int i = 0; i < engines.length; i++) copies[i] = term.copy();
+
+    for(int i = 0; i < engines.length; i++) {
+      final Engine engine = engines[i];
+      final LambdaTerm copy = copies[i];
+      final Governor fork = governor.fork();
+      futures.add(race.submit(new Callable<Result>() {
+        public Result call() {
+          Result result = engine.normalize(copy, fork);
+          return new PortfolioResult(result.getTerm(), result.getSteps(), result.getLimit(), engine.getName());
+        }
+      }));
+    }
+
+    Result last = null;
+    RuntimeException failure = null;
+    try {
+      for(int i = 0; i < engines.length; i++) {
+        Result result;
+        try {
+          result = race.take().get();
+        } catch(ExecutionException e) {
+          if(failure == null) failure = new RuntimeException(e.getCause());
+          continue;
+        }
+
+        if(result.isNormalForm()) {
+          PortfolioResult winner = (PortfolioResult) result;
+          synchronized(this) {
+            wins.put(winner.getWinner(), wins.get(winner.getWinner()) + 1);
+          }
+          return winner;
+        }
+        last = result;
+      }
+    } catch(InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return new Result(null, 0, Limit.INTERRUPTED);
+    } finally {
+      for(Future<Result> future : futures) future.cancel(true);
+    }
+
+    if(last == null && failure != null) throw failure;
+    return last;
+  }
+}
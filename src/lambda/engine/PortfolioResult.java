@@ -0,0 +1,26 @@
+package lambda.engine;
+
+import lambda.LambdaTerm;
+
+/**
+ * Outcome of a portfolio, together with the engine that produced it.
+ */
+public class PortfolioResult extends Result {
+  private String winner;
+
+  public PortfolioResult(LambdaTerm term, int steps, Limit limit, String winner) {
+    super(term, steps, limit);
+    this.winner = winner;
+  }
+
+  /**
+   * @return name of the engine which produced the result
+   */
+  public String getWinner() {
+    return winner;
+  }
+
+  public String toString() {
+    return super.toString() + " by " + winner;
+  }
+}
@@ -0,0 +1,171 @@
+package lambda.engine;
+
+import lambda.LambdaTerm;
+import lambda.parser.DependencyGraph;
+import lambda.parser.Definitions;
+import lambda.parser.LambdaTermParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Normalizes definitions ahead of reduction, so unfolding a constant gives
+ * its normal form instead of its definition. A definition is normalized
+ * with the normal forms of the definitions it uses in place of their
+ * names. Definitions which do not depend on each other are normalized in
+ * parallel, level by level of the dependency graph.
+ *
+ * Usage: Prenormalizer file [maxSteps]
+ */
+public class Prenormalizer {
+  private static final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "prenormalizer");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private Engine engine;
+  private int maxSteps;
+  private ArrayList<String> exhausted = new ArrayList<String>();
+  private ArrayList<String> skipped = new ArrayList<String>();
+
+  /**
+   * @param engine engine the definitions are normalized with
+   * @param maxSteps step budget of every definition
+   */
+  public Prenormalizer(Engine engine, int maxSteps) {
+    this.engine = engine;
+    this.maxSteps = maxSteps;
+  }
+
+  /**
+   * Normalizes the definitions which have no normal form yet, except Init
+   * and recursive definitions.
+   */
+  public void normalize(final Definitions definitions) {
+    exhausted.clear();
+    skipped.clear();
+    DependencyGraph graph = definitions.getDependencyGraph();
+
+    // a definition is normalized one level after the definitions it uses
+    HashMap<String, Integer> levels = new HashMap<String, Integer>();
+    ArrayList<List<String>> byLevel = new ArrayList<List<String>>();
+    for(List<String> component : graph.getComponents()) {
+      String name = component.get(0);
+      if(definitions.getNormalForm(name) != null) continue;
+      if(component.size() > 1 || graph.getDependencies(name).contains(name) || name.equals("Init")) {
+        skipped.addAll(component);
+        continue;
+      }
+
+      int level = 0;
+      for(String dependency : graph.getDependencies(name)) {
+        if(definitions.getNormalForm(dependency) != null) continue;
+        Integer dependencyLevel = levels.get(dependency);
+        if(dependencyLevel == null) {
+          level = -1;
+          break;
+        }
+        level = Math.max(level, dependencyLevel + 1);
+      }
+      if(level < 0) {
+        skipped.add(name);
+        continue;
+      }
+
+      levels.put(name, level);
+      if(level == byLevel.size()) byLevel.add(new ArrayList<String>());
+      byLevel.get(level).add(name);
+    }
+
+    for(List<String> names : byLevel) {
+      final ArrayList<String> ready = new ArrayList<String>();
+      ArrayList<Callable<Result>> tasks = new ArrayList<Callable<Result>>();
+      for(String name : names) {
+        // the definitions it uses may have run out of steps
+        final HashMap<String, LambdaTerm> normalForms = new HashMap<String, LambdaTerm>();
+        for(String dependency : graph.getDependencies(name)) normalForms.put(dependency, definitions.getNormalForm(dependency));
+        if(normalForms.containsValue(null)) {
+          skipped.add(name);
+          continue;
+        }
+
+        final LambdaTerm term = definitions.get(name);
+        ready.add(name);
+        tasks.add(new Callable<Result>() {
+          public Result call() {
+            try {
+              return engine.normalize(term.copy().replace(normalForms), new Governor(maxSteps));
+            } catch(StackOverflowError e) {
+              // too deep for the engine
+              return new Result(null, maxSteps, Limit.STACK);
+            }
+          }
+        });
+      }
+
+      try {
+        List<Future<Result>> results = executor.invokeAll(tasks);
+        for(int i = 0; i < ready.size(); i++) {
+          Result result = results.get(i).get();
+          if(result.isNormalForm()) definitions.setNormalForm(ready.get(i), result.getTerm());
+          else exhausted.add(ready.get(i));
+        }
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      } catch(ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+    }
+  }
+
+  /**
+   * @return definitions which reached the step budget in the last run
+   */
+  public List<String> getExhausted() {
+    return exhausted;
+  }
+
+  /**
+   * @return definitions which were not normalized in the last run because
+   *         they are recursive or use a definition without normal form
+   */
+  public List<String> getSkipped() {
+    return skipped;
+  }
+
+  public static void main(String[] args) throws IOException {
+    if(args.length == 0) {
+      System.err.println("Usage: Prenormalizer file [maxSteps]");
+      return;
+    }
+    int maxSteps = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+    String source = new String(Files.readAllBytes(new File(args[0]).toPath()), StandardCharsets.UTF_8);
+    Definitions definitions = LambdaTermParser.parse(source, false);
+    Prenormalizer prenormalizer = new Prenormalizer(Engines.getDefault(), maxSteps);
+
+    long start = System.nanoTime();
+    prenormalizer.normalize(definitions);
+    long time = System.nanoTime() - start;
+
+    int normalized = definitions.getDefinitions().length - prenormalizer.getExhausted().size() - prenormalizer.getSkipped().size();
+    System.out.println(String.format("%d normalized in %.3f ms", normalized, time / 1e6));
+    System.out.println("step budget reached: " + prenormalizer.getExhausted());
+    System.out.println("skipped: " + prenormalizer.getSkipped());
+  }
+}
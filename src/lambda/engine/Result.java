@@ -0,0 +1,55 @@
+package lambda.engine;
+
+import lambda.LambdaTerm;
+
+/**
+ * Outcome of a normalization.
+ */
+public class Result {
+  private LambdaTerm term;
+  private int steps;
+  private Limit limit;
+
+  /**
+   * A result without term stopped at the step limit.
+   */
+  public Result(LambdaTerm term, int steps) {
+    this(term, steps, term != null ? null : Limit.STEPS);
+  }
+
+  /**
+   * @param limit limit which stopped the reduction, null for a normal form
+   */
+  public Result(LambdaTerm term, int steps, Limit limit) {
+    this.term = term;
+    this.steps = steps;
+    this.limit = term != null ? null : limit;
+  }
+
+  /**
+   * @return the normal form or null if a limit was reached
+   */
+  public LambdaTerm getTerm() {
+    return term;
+  }
+
+  public int getSteps() {
+    return steps;
+  }
+
+  /**
+   * @return the limit which stopped the reduction, or null for a normal form
+   */
+  public Limit getLimit() {
+    return limit;
+  }
+
+  public boolean isNormalForm() {
+    return term != null;
+  }
+
+  public String toString() {
+    String limited = limit != null && limit != Limit.STEPS ? ", " + limit : "";
+    return (term != null ? term.toString() : "no normal form") + " [" + steps + " steps" + limited + "]";
+  }
+}
@@ -0,0 +1,29 @@
+package lambda.engine;
+
+import lambda.LambdaTerm;
+import lambda.types.TypeInference;
+
+/**
+ * Sends simply typed terms, which are strongly normalizing, to a strict
+ * engine and all other terms to a fallback engine.
+ */
+public class TypedEngine implements Engine {
+  private String name;
+  private Engine strict;
+  private Engine fallback;
+
+  public TypedEngine(String name, Engine strict, Engine fallback) {
+    this.name = name;
+    this.strict = strict;
+    this.fallback = fallback;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Result normalize(LambdaTerm term, Governor governor) {
+    if(TypeInference.isTypeable(term)) return strict.normalize(term, governor);
+    return fallback.normalize(term, governor);
+  }
+}
@@ -0,0 +1,27 @@
+package lambda.engine.cek;
+
+import lambda.LambdaTerm;
+import lambda.engine.DeBruijnTerm;
+import lambda.engine.Engine;
+import lambda.engine.Governor;
+import lambda.engine.Names;
+import lambda.engine.Result;
+
+/**
+ * Call-by-value normalization with the CEK machine. Arguments are evaluated
+ * before they are passed, so terms which only normalize lazily diverge.
+ */
+public class CekEngine implements Engine {
+  public String getName() {
+    return "cek";
+  }
+
+  public Result normalize(LambdaTerm term, Governor governor) {
+    CekMachine machine = new CekMachine(governor);
+
+    Value value = machine.evaluate(DeBruijnTerm.fromTerm(term));
+    DeBruijnTerm normalForm = value != null ? machine.readBack(value) : null;
+
+    return new Result(normalForm != null ? normalForm.toTerm(new Names(term)) : null, governor.getSteps(), governor.getExceeded());
+  }
+}
@@ -0,0 +1,179 @@
+package lambda.engine.cek;
+
+import lambda.engine.DeBruijnTerm;
+import lambda.engine.Governor;
+
+import java.util.ArrayList;
+
+/**
+ * CEK machine for call-by-value: control term, persistent environment and
+ * an explicit continuation stack. Neither evaluation nor read back recurse
+ * on the Java stack.
+ */
+public class CekMachine {
+  private ArrayList<Frame> continuation = new ArrayList<Frame>();
+  private Governor governor;
+
+  public CekMachine(Governor governor) {
+    this.governor = governor;
+  }
+
+  /**
+   * @return number of beta steps, i.e. closures applied to values
+   */
+  public int getSteps() {
+    return governor.getSteps();
+  }
+
+  /**
+   * Evaluates a closed term to a value.
+   *
+   * @return the value or null if the step limit was reached
+   */
+  public Value evaluate(DeBruijnTerm term) {
+    return evaluate(term, null);
+  }
+
+  private Value evaluate(DeBruijnTerm control, Environment environment) {
+    int base = continuation.size();
+    Value value = null;
+
+    while(true) {
+      if(control != null) {
+        switch(control.getTag()) {
+          case DeBruijnTerm.BOUND:
+            value = Environment.lookup(environment, control.getIndex());
+            control = null;
+            break;
+          case DeBruijnTerm.FREE:
+            value = Value.free(control.getName());
+            control = null;
+            break;
+          case DeBruijnTerm.ABSTRACTION:
+            value = Value.closure(control, environment);
+            control = null;
+            break;
+          case DeBruijnTerm.APPLICATION:
+            continuation.add(Frame.argument(control.getRight(), environment));
+            control = control.getLeft();
+            break;
+        }
+        continue;
+      }
+
+      if(continuation.size() == base) return value;
+      Frame frame = continuation.remove(continuation.size() - 1);
+
+      if(frame.term != null) {
+        // function evaluated, evaluate the argument next
+        continuation.add(Frame.apply(value));
+        control = frame.term;
+        environment = frame.environment;
+      } else if(frame.function.isClosure()) {
+        if(!governor.step()) {
+          while(continuation.size() > base) continuation.remove(continuation.size() - 1);
+          return null;
+        }
+        environment = new Environment(value, frame.function.environment);
+        control = frame.function.abstraction.getBody();
+      } else {
+        value = frame.function.apply(value);
+      }
+    }
+  }
+
+  /**
+   * Reads a value back into a term in normal form. The bodies of closures
+   * are evaluated with their variable bound to a neutral term.
+   *
+   * @return the normal form or null if the step limit was reached
+   */
+  public DeBruijnTerm readBack(Value value) {
+    ArrayList<Object> work = new ArrayList<Object>();
+    ArrayList<DeBruijnTerm> results = new ArrayList<DeBruijnTerm>();
+
+    work.add(new Read(value, 0));
+    while(!work.isEmpty()) {
+      Object item = work.remove(work.size() - 1);
+
+      if(item instanceof Read) {
+        Read read = (Read) item;
+        Value v = read.value;
+
+        if(v.isClosure()) {
+          Value body = evaluate(v.abstraction.getBody(), new Environment(Value.level(read.depth), v.environment));
+          if(body == null) return null;
+          work.add(new Build(v.abstraction.getName(), null, 0));
+          work.add(new Read(body, read.depth + 1));
+        } else {
+          DeBruijnTerm head = v.name != null ? DeBruijnTerm.free(v.name) : DeBruijnTerm.bound(read.depth - 1 - v.level);
+          work.add(new Build(null, head, v.argumentCount));
+          for(Environment argument = v.arguments; argument != null; argument = argument.next) {
+            work.add(new Read(argument.value, read.depth));
+          }
+        }
+      } else {
+        Build build = (Build) item;
+        if(build.head == null) {
+          results.add(DeBruijnTerm.abstraction(build.name, results.remove(results.size() - 1)));
+        } else {
+          DeBruijnTerm term = build.head;
+          int first = results.size() - build.argumentCount;
+          for(int i = first; i < results.size(); i++) term = DeBruijnTerm.application(term, results.get(i));
+          while(results.size() > first) results.remove(results.size() - 1);
+          results.add(term);
+        }
+      }
+    }
+    return results.get(0);
+  }
+
+  /**
+   * Continuation frame: either an argument still to evaluate in its
+   * environment, or a function value waiting for its argument.
+   */
+  private static final class Frame {
+    DeBruijnTerm term;
+    Environment environment;
+    Value function;
+
+    static Frame argument(DeBruijnTerm term, Environment environment) {
+      Frame frame = new Frame();
+      frame.term = term;
+      frame.environment = environment;
+      return frame;
+    }
+
+    static Frame apply(Value function) {
+      Frame frame = new Frame();
+      frame.function = function;
+      return frame;
+    }
+  }
+
+  private static final class Read {
+    Value value;
+    int depth;
+
+    Read(Value value, int depth) {
+      this.value = value;
+      this.depth = depth;
+    }
+  }
+
+  /**
+   * Builds an abstraction with the given binder name, or applies a head to
+   * the last argumentCount results.
+   */
+  private static final class Build {
+    String name;
+    DeBruijnTerm head;
+    int argumentCount;
+
+    Build(String name, DeBruijnTerm head, int argumentCount) {
+      this.name = name;
+      this.head = head;
+      this.argumentCount = argumentCount;
+    }
+  }
+}
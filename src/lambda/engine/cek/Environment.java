@@ -0,0 +1,20 @@
+package lambda.engine.cek;
+
+/**
+ * Persistent environment: the value of de Bruijn index 0 followed by the
+ * rest. Extending an environment never copies it.
+ */
+final class Environment {
+  final Value value;
+  final Environment next;
+
+  Environment(Value value, Environment next) {
+    this.value = value;
+    this.next = next;
+  }
+
+  static Value lookup(Environment environment, int index) {
+    while(index-- > 0) environment = environment.next;
+    return environment.value;
+  }
+}
@@ -0,0 +1,52 @@
+package lambda.engine.cek;
+
+import lambda.engine.DeBruijnTerm;
+
+/**
+ * Value of the CEK machine: a closure, or a neutral term whose head is a
+ * free variable applied to values.
+ */
+final class Value {
+  // closure
+  final DeBruijnTerm abstraction;
+  final Environment environment;
+
+  // neutral term: head is a free variable name or the level of a variable
+  // introduced by read back; arguments are kept in reverse order
+  final String name;
+  final int level;
+  final Environment arguments;
+  final int argumentCount;
+
+  private Value(DeBruijnTerm abstraction, Environment environment, String name, int level, Environment arguments, int argumentCount) {
+    this.abstraction = abstraction;
+    this.environment = environment;
+    this.name = name;
+    this.level = level;
+    this.arguments = arguments;
+    this.argumentCount = argumentCount;
+  }
+
+  static Value closure(DeBruijnTerm abstraction, Environment environment) {
+    return new Value(abstraction, environment, null, -1, null, 0);
+  }
+
+  static Value free(String name) {
+    return new Value(null, null, name, -1, null, 0);
+  }
+
+  static Value level(int level) {
+    return new Value(null, null, null, level, null, 0);
+  }
+
+  boolean isClosure() {
+    return abstraction != null;
+  }
+
+  /**
+   * Applies a neutral term to one more argument.
+   */
+  Value apply(Value argument) {
+    return new Value(null, null, name, level, new Environment(argument, arguments), argumentCount + 1);
+  }
+}
@@ -0,0 +1,57 @@
+package lambda.engine.gmachine;
+
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Compiles supercombinator bodies to G-code which instantiates the body
+ * and updates the redex root.
+ */
+public class CodeGenerator {
+  private Map<String, Supercombinator> globals;
+  private Map<String, Supercombinator> locals;
+
+  /**
+   * @param globals supercombinators by name, with their indices assigned
+   * @param locals supercombinators shadowing the globals
+   */
+  public CodeGenerator(Map<String, Supercombinator> globals, Map<String, Supercombinator> locals) {
+    this.globals = globals;
+    this.locals = locals;
+  }
+
+  public void generate(Supercombinator supercombinator) {
+    ArrayList<Instruction> code = new ArrayList<Instruction>();
+    generate(supercombinator.getBody(), supercombinator.getArity(), code);
+    code.add(new Instruction(Instruction.UPDATE, 0, null));
+    supercombinator.setCode(code.toArray(new Instruction[code.size()]));
+  }
+
+  private void generate(Expression expression, int arity, ArrayList<Instruction> code) {
+    switch(expression.tag) {
+      case Expression.PARAMETER:
+        // parameter i is the argument of the i-th application above the head
+        code.add(new Instruction(Instruction.PUSHARG, arity - 1 - expression.index, null));
+        break;
+
+      case Expression.GLOBAL:
+        code.add(new Instruction(Instruction.PUSHGLOBAL, resolve(expression.name).getIndex(), null));
+        break;
+
+      case Expression.ATOM:
+        code.add(new Instruction(Instruction.PUSHATOM, 0, expression.name));
+        break;
+
+      case Expression.APPLICATION:
+        generate(expression.right, arity, code);
+        generate(expression.left, arity, code);
+        code.add(new Instruction(Instruction.MKAP, 0, null));
+        break;
+    }
+  }
+
+  private Supercombinator resolve(String name) {
+    Supercombinator supercombinator = locals.get(name);
+    return supercombinator != null ? supercombinator : globals.get(name);
+  }
+}
@@ -0,0 +1,56 @@
+package lambda.engine.gmachine;
+
+/**
+ * Body of a supercombinator: applications of parameters, globals and atoms.
+ */
+public final class Expression {
+  public static final int PARAMETER = 0;
+  public static final int GLOBAL = 1;
+  public static final int ATOM = 2;
+  public static final int APPLICATION = 3;
+
+  int tag;
+  int index;
+  String name;
+  Expression left, right;
+
+  private Expression(int tag) {
+    this.tag = tag;
+  }
+
+  public static Expression parameter(int index) {
+    Expression expression = new Expression(PARAMETER);
+    expression.index = index;
+    return expression;
+  }
+
+  public static Expression global(String name) {
+    Expression expression = new Expression(GLOBAL);
+    expression.name = name;
+    return expression;
+  }
+
+  /**
+   * Free variable which is neither a parameter nor a global.
+   */
+  public static Expression atom(String name) {
+    Expression expression = new Expression(ATOM);
+    expression.name = name;
+    return expression;
+  }
+
+  public static Expression application(Expression left, Expression right) {
+    Expression expression = new Expression(APPLICATION);
+    expression.left = left;
+    expression.right = right;
+    return expression;
+  }
+
+  public String toString() {
+    switch(tag) {
+      case PARAMETER: return "#" + index;
+      case APPLICATION: return "(" + left + " " + right + ")";
+      default: return name;
+    }
+  }
+}
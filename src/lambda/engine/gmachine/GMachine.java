@@ -0,0 +1,217 @@
+package lambda.engine.gmachine;
+
+import lambda.LambdaTerm;
+import lambda.Lambda;
+import lambda.Application;
+import lambda.Variable;
+import lambda.engine.Governor;
+import lambda.engine.Names;
+import lambda.engine.Result;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Stack based graph reduction machine executing G-code. A machine belongs
+ * to one evaluation; it owns the nodes of the globals, so constant
+ * applicative forms are shared within the evaluation only.
+ */
+public class GMachine {
+  private GProgram program;
+  private HashMap<String, Supercombinator> locals = new HashMap<String, Supercombinator>();
+  private ArrayList<Supercombinator> localList = new ArrayList<Supercombinator>();
+  private GNode[] nodes;
+
+  private ArrayList<GNode> stack = new ArrayList<GNode>();
+  private Governor governor;
+
+  /**
+   * @param governor limits of the evaluation; the size is the number of
+   *                 application nodes built
+   */
+  public GMachine(GProgram program, Governor governor) {
+    this.program = program;
+    this.governor = governor;
+  }
+
+  public int getSteps() {
+    return governor.getSteps();
+  }
+
+  /**
+   * Compiles a term against the program and reduces it to normal form.
+   */
+  public Result normalize(LambdaTerm term) {
+    LambdaLifter lifter = new LambdaLifter(program.getGlobals().keySet());
+    List<Supercombinator> lifted = lifter.lift("$main", term);
+    for(Supercombinator supercombinator : lifted) {
+      supercombinator.setIndex(program.size() + localList.size());
+      localList.add(supercombinator);
+      locals.put(supercombinator.getName(), supercombinator);
+    }
+
+    CodeGenerator generator = new CodeGenerator(program.getGlobals(), locals);
+    for(Supercombinator supercombinator : lifted) generator.generate(supercombinator);
+
+    nodes = new GNode[program.size() + localList.size()];
+    GNode root = global(lifted.get(lifted.size() - 1).getIndex());
+
+    LambdaTerm normalForm = readBack(root, new Names(term));
+    return new Result(normalForm, governor.getSteps(), governor.getExceeded());
+  }
+
+  private GNode global(int index) {
+    if(nodes[index] == null) {
+      Supercombinator supercombinator = index < program.size() ? program.get(index) : localList.get(index - program.size());
+      nodes[index] = GNode.global(supercombinator);
+    }
+    return nodes[index];
+  }
+
+  private GNode top() {
+    return stack.get(stack.size() - 1);
+  }
+
+  private GNode pop() {
+    return stack.remove(stack.size() - 1);
+  }
+
+  /**
+   * Reduces a graph to weak head normal form. Afterwards the stack holds the
+   * spine from the root down to the head.
+   *
+   * @return false if a limit was reached
+   */
+  private boolean whnf(GNode root) {
+    stack.clear();
+    stack.add(root.deref());
+
+    while(true) {
+      GNode node = top();
+
+      switch(node.tag) {
+        case GNode.INDIRECTION:
+          stack.set(stack.size() - 1, node.deref());
+          break;
+
+        case GNode.APPLICATION:
+          stack.add(node.left.deref());
+          break;
+
+        case GNode.ATOM:
+          return true;
+
+        case GNode.GLOBAL:
+          Supercombinator supercombinator = node.global;
+          int frame = stack.size() - 1 - supercombinator.getArity();
+          if(frame < 0) return true;
+          if(!governor.step()) return false;
+          if(!governor.grow(execute(supercombinator.getCode(), frame))) return false;
+          break;
+      }
+    }
+  }
+
+  /**
+   * @return number of application nodes built
+   */
+  private int execute(Instruction[] code, int frame) {
+    int built = 0;
+    for(Instruction instruction : code) {
+      switch(instruction.opcode) {
+        case Instruction.PUSHARG:
+          stack.add(stack.get(frame + instruction.operand).right);
+          break;
+
+        case Instruction.PUSHGLOBAL:
+          stack.add(global(instruction.operand));
+          break;
+
+        case Instruction.PUSHATOM:
+          stack.add(GNode.atom(instruction.name));
+          break;
+
+        case Instruction.MKAP:
+          GNode left = pop();
+          GNode right = pop();
+          stack.add(GNode.application(left, right));
+          built++;
+          break;
+
+        case Instruction.UPDATE:
+          GNode result = pop().deref();
+          GNode redex = stack.get(frame);
+          while(stack.size() > frame + 1) pop();
+          if(result != redex) redex.updateIndirection(result);
+          stack.set(frame, result);
+          break;
+      }
+    }
+    return built;
+  }
+
+  /**
+   * Reads a graph back into a lambda term in beta normal form. Partial
+   * applications are applied to a fresh atom. The graph is read with an
+   * explicit stack, so deep normal forms do not exhaust the Java stack.
+   *
+   * @return the normal form or null if a limit was reached
+   */
+  private LambdaTerm readBack(GNode root, Names names) {
+    ArrayList<Object> work = new ArrayList<Object>();
+    ArrayList<LambdaTerm> results = new ArrayList<LambdaTerm>();
+
+    work.add(root);
+    while(!work.isEmpty()) {
+      Object item = work.remove(work.size() - 1);
+      if(item instanceof Build) {
+        Build build = (Build) item;
+        if(build.binder != null) {
+          names.release(build.binder);
+          results.add(new Lambda(build.binder, results.remove(results.size() - 1)));
+        } else {
+          LambdaTerm term = new Variable(build.head);
+          int first = results.size() - build.argumentCount;
+          for(int i = first; i < results.size(); i++) term = new Application(term, results.get(i));
+          while(results.size() > first) results.remove(results.size() - 1);
+          results.add(term);
+        }
+        continue;
+      }
+
+      GNode node = (GNode) item;
+      if(!whnf(node)) return null;
+
+      GNode head = top();
+      if(head.tag == GNode.GLOBAL) {
+        String name = names.fresh("x");
+        work.add(new Build(name, null, 0));
+        work.add(GNode.application(node, GNode.atom(name)));
+        continue;
+      }
+
+      // the first argument is read first
+      int argumentCount = stack.size() - 1;
+      work.add(new Build(null, head.name, argumentCount));
+      for(int i = 0; i < argumentCount; i++) work.add(stack.get(i).right);
+    }
+    return results.get(0);
+  }
+
+  /**
+   * Builds an abstraction over the binder or applies the head to the
+   * arguments read last.
+   */
+  private static final class Build {
+    String binder;
+    String head;
+    int argumentCount;
+
+    Build(String binder, String head, int argumentCount) {
+      this.binder = binder;
+      this.head = head;
+      this.argumentCount = argumentCount;
+    }
+  }
+}
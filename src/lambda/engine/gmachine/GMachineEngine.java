@@ -0,0 +1,35 @@
+package lambda.engine.gmachine;
+
+import lambda.LambdaTerm;
+import lambda.engine.Engine;
+import lambda.engine.Governor;
+import lambda.engine.Result;
+import lambda.parser.Definitions;
+
+/**
+ * Normalization by lambda lifting and G-machine graph reduction.
+ */
+public class GMachineEngine implements Engine {
+  private Definitions definitions;
+
+  public GMachineEngine() {
+  }
+
+  /**
+   * Free names of the terms refer to the definitions. The definitions are
+   * compiled once per definition set, see GProgram.get, so every term
+   * only compiles itself.
+   */
+  public GMachineEngine(Definitions definitions) {
+    this.definitions = definitions;
+  }
+
+  public String getName() {
+    return "gmachine";
+  }
+
+  public Result normalize(LambdaTerm term, Governor governor) {
+    GProgram program = definitions != null ? GProgram.get(definitions) : GProgram.empty();
+    return program.normalize(term, governor);
+  }
+}
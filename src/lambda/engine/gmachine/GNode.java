@@ -0,0 +1,52 @@
+package lambda.engine.gmachine;
+
+/**
+ * Heap node of the G-machine.
+ */
+final class GNode {
+  static final int APPLICATION = 0;
+  static final int GLOBAL = 1;
+  static final int ATOM = 2;
+  static final int INDIRECTION = 3;
+
+  int tag;
+  GNode left, right;
+  Supercombinator global;
+  String name;
+
+  static GNode application(GNode left, GNode right) {
+    GNode node = new GNode();
+    node.tag = APPLICATION;
+    node.left = left;
+    node.right = right;
+    return node;
+  }
+
+  static GNode global(Supercombinator global) {
+    GNode node = new GNode();
+    node.tag = GLOBAL;
+    node.global = global;
+    return node;
+  }
+
+  static GNode atom(String name) {
+    GNode node = new GNode();
+    node.tag = ATOM;
+    node.name = name;
+    return node;
+  }
+
+  GNode deref() {
+    GNode node = this;
+    while(node.tag == INDIRECTION) node = node.left;
+    return node;
+  }
+
+  void updateIndirection(GNode node) {
+    tag = INDIRECTION;
+    left = node;
+    right = null;
+    global = null;
+    name = null;
+  }
+}
@@ -0,0 +1,120 @@
+package lambda.engine.gmachine;
+
+import lambda.LambdaTerm;
+import lambda.engine.Governor;
+import lambda.engine.Result;
+import lambda.parser.Definition;
+import lambda.parser.Definitions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Supercombinators compiled from a set of definitions. Programs are
+ * immutable, so one program can serve any number of evaluations.
+ */
+public class GProgram {
+  // the program of every definition set, as long as the set is in use
+  private static final WeakHashMap<Definitions, Compiled> cache = new WeakHashMap<Definitions, Compiled>();
+
+  private HashMap<String, Supercombinator> globals = new HashMap<String, Supercombinator>();
+  private ArrayList<Supercombinator> supercombinators = new ArrayList<Supercombinator>();
+
+  private GProgram() {
+  }
+
+  /**
+   * Compiles all definitions except Init, which is the input.
+   */
+  public static GProgram compile(Definitions definitions) {
+    GProgram program = new GProgram();
+
+    HashMap<String, Supercombinator> names = new HashMap<String, Supercombinator>();
+    for(Definition definition : definitions.getDefinitions()) {
+      if(!definition.getName().equals("Init")) names.put(definition.getName(), null);
+    }
+
+    LambdaLifter lifter = new LambdaLifter(names.keySet());
+    for(Definition definition : definitions.getDefinitions()) {
+      if(definition.getName().equals("Init")) continue;
+      for(Supercombinator supercombinator : lifter.lift(definition.getName(), definition.getTerm())) {
+        supercombinator.setIndex(program.supercombinators.size());
+        program.supercombinators.add(supercombinator);
+        program.globals.put(supercombinator.getName(), supercombinator);
+      }
+    }
+
+    CodeGenerator generator = new CodeGenerator(program.globals, Collections.<String, Supercombinator>emptyMap());
+    for(Supercombinator supercombinator : program.supercombinators) generator.generate(supercombinator);
+
+    return program;
+  }
+
+  /**
+   * Returns the compiled program for a definition set, compiling it only if
+   * the set changed since it was compiled last, apart from Init.
+   */
+  public static GProgram get(Definitions definitions) {
+    int modifications = definitions.getModifications();
+    synchronized(cache) {
+      Compiled compiled = cache.get(definitions);
+      if(compiled != null && compiled.modifications == modifications) return compiled.program;
+    }
+
+    GProgram program = compile(definitions);
+    synchronized(cache) {
+      cache.put(definitions, new Compiled(program, modifications));
+    }
+    return program;
+  }
+
+  public static GProgram empty() {
+    return new GProgram();
+  }
+
+  public Supercombinator get(String name) {
+    return globals.get(name);
+  }
+
+  Map<String, Supercombinator> getGlobals() {
+    return globals;
+  }
+
+  Supercombinator get(int index) {
+    return supercombinators.get(index);
+  }
+
+  public int size() {
+    return supercombinators.size();
+  }
+
+  /**
+   * Normalizes a term whose free variables may refer to the definitions.
+   */
+  public Result normalize(LambdaTerm term, Governor governor) {
+    return new GMachine(this, governor).normalize(term);
+  }
+
+  public String toString() {
+    String string = "";
+    for(Supercombinator supercombinator : supercombinators) string += supercombinator + "\n";
+    return string;
+  }
+
+  /**
+   * A program with the modification count of the definitions it was
+   * compiled from.
+   */
+  private static class Compiled {
+    private GProgram program;
+    private int modifications;
+
+    Compiled(GProgram program, int modifications) {
+      this.program = program;
+      this.modifications = modifications;
+    }
+  }
+}
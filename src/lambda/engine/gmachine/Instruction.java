@@ -0,0 +1,37 @@
+package lambda.engine.gmachine;
+
+/**
+ * G-machine instruction.
+ */
+public final class Instruction {
+  /** Pushes the argument of the application at frame + operand. */
+  public static final int PUSHARG = 0;
+  /** Pushes the node of the global with index operand. */
+  public static final int PUSHGLOBAL = 1;
+  /** Pushes a new atom node. */
+  public static final int PUSHATOM = 2;
+  /** Replaces the two top nodes by their application. */
+  public static final int MKAP = 3;
+  /** Overwrites the redex root with the top node and pops the frame. */
+  public static final int UPDATE = 4;
+
+  private static final String[] names = {"PUSHARG", "PUSHGLOBAL", "PUSHATOM", "MKAP", "UPDATE"};
+
+  final int opcode;
+  final int operand;
+  final String name;
+
+  public Instruction(int opcode, int operand, String name) {
+    this.opcode = opcode;
+    this.operand = operand;
+    this.name = name;
+  }
+
+  public String toString() {
+    switch(opcode) {
+      case PUSHARG: case PUSHGLOBAL: return names[opcode] + " " + operand;
+      case PUSHATOM: return names[opcode] + " " + name;
+      default: return names[opcode];
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package lambda.engine.gmachine;
+
+import lambda.LambdaTerm;
+import lambda.Lambda;
+import lambda.Application;
+import lambda.Variable;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Lambda lifting: every abstraction becomes a supercombinator whose first
+ * parameters are the variables it captures from enclosing abstractions.
+ */
+public class LambdaLifter {
+  private Set<String> globals;
+  private ArrayList<Supercombinator> supercombinators = new ArrayList<Supercombinator>();
+  private String prefix;
+  private int counter = 0;
+
+  /**
+   * @param globals names referring to supercombinators rather than atoms
+   */
+  public LambdaLifter(Set<String> globals) {
+    this.globals = globals;
+  }
+
+  /**
+   * Lifts a closed definition name = term.
+   *
+   * @return the supercombinators created, the one for name being last
+   */
+  public List<Supercombinator> lift(String name, LambdaTerm term) {
+    supercombinators = new ArrayList<Supercombinator>();
+    prefix = name;
+
+    ArrayList<String> parameters = new ArrayList<String>();
+    Expression body = liftAbstractions(term, parameters);
+    supercombinators.add(new Supercombinator(name, parameters.size(), body));
+
+    return supercombinators;
+  }
+
+  /**
+   * Strips the leading abstractions of a term into parameters and lifts the body.
+   */
+  private Expression liftAbstractions(LambdaTerm term, ArrayList<String> parameters) {
+    while(term instanceof Lambda) {
+      Lambda lambda = (Lambda) term;
+      parameters.add(lambda.getName());
+      term = lambda.getTerm();
+    }
+    return lift(term, parameters);
+  }
+
+  private Expression lift(LambdaTerm term, List<String> scope) {
+    if(term instanceof Variable) {
+      String name = ((Variable) term).getName();
+      int index = scope.lastIndexOf(name);
+      if(index >= 0) return Expression.parameter(index);
+      return globals.contains(name) ? Expression.global(name) : Expression.atom(name);
+    }
+
+    if(term instanceof Application) {
+      Application application = (Application) term;
+      return Expression.application(lift(application.getLeft(), scope), lift(application.getRight(), scope));
+    }
+
+    if(term instanceof Lambda) {
+      // captured variables become leading parameters
+      HashSet<String> free = new HashSet<String>();
+      term.getFreeVariables(free);
+      ArrayList<String> captured = new ArrayList<String>();
+      for(String name : scope) {
+        if(free.contains(name) && !captured.contains(name)) captured.add(name);
+      }
+
+      ArrayList<String> parameters = new ArrayList<String>(captured);
+      Expression body = liftAbstractions(term, parameters);
+
+      String name = prefix + "$" + (++counter);
+      supercombinators.add(new Supercombinator(name, parameters.size(), body));
+
+      Expression expression = Expression.global(name);
+      for(String variable : captured) {
+        expression = Expression.application(expression, Expression.parameter(scope.lastIndexOf(variable)));
+      }
+      return expression;
+    }
+
+    throw new RuntimeException("Unkown LambdaTerm.");
+  }
+}
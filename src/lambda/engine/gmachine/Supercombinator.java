@@ -0,0 +1,55 @@
+package lambda.engine.gmachine;
+
+/**
+ * Supercombinator name p0 ... pn-1 = body, together with its G-code.
+ */
+public class Supercombinator {
+  private String name;
+  private int arity;
+  private Expression body;
+  private int index;
+  private Instruction[] code;
+
+  public Supercombinator(String name, int arity, Expression body) {
+    this.name = name;
+    this.arity = arity;
+    this.body = body;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getArity() {
+    return arity;
+  }
+
+  public Expression getBody() {
+    return body;
+  }
+
+  /**
+   * Slot of the supercombinator in the global table.
+   */
+  public int getIndex() {
+    return index;
+  }
+
+  void setIndex(int index) {
+    this.index = index;
+  }
+
+  public Instruction[] getCode() {
+    return code;
+  }
+
+  void setCode(Instruction[] code) {
+    this.code = code;
+  }
+
+  public String toString() {
+    String string = name;
+    for(int i = 0; i < arity; i++) string += " #" + i;
+    return string + " = " + body;
+  }
+}
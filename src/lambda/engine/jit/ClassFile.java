@@ -0,0 +1,216 @@
+package lambda.engine.jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+
+/**
+ * Minimal class file writer. Methods consist of straight-line code only, so
+ * version 49 class files without stack map frames suffice.
+ */
+final class ClassFile {
+  static final int ALOAD_0 = 0x2a;
+  static final int ALOAD_1 = 0x2b;
+  static final int ALOAD = 0x19;
+  static final int DUP = 0x59;
+  static final int NEW = 0xbb;
+  static final int LDC_W = 0x13;
+  static final int GETFIELD = 0xb4;
+  static final int PUTFIELD = 0xb5;
+  static final int INVOKEVIRTUAL = 0xb6;
+  static final int INVOKESPECIAL = 0xb7;
+  static final int INVOKESTATIC = 0xb8;
+  static final int ARETURN = 0xb0;
+  static final int RETURN = 0xb1;
+
+  private static final int ACC_PUBLIC = 0x0001;
+  private static final int ACC_PRIVATE = 0x0002;
+  private static final int ACC_PROTECTED = 0x0004;
+  private static final int ACC_FINAL = 0x0010;
+  private static final int ACC_SUPER = 0x0020;
+
+  private ByteArrayOutputStream constants = new ByteArrayOutputStream();
+  private DataOutputStream constantPool = new DataOutputStream(constants);
+  private HashMap<String, Integer> constantIndices = new HashMap<String, Integer>();
+  private int constantCount = 1;
+
+  private ByteArrayOutputStream members = new ByteArrayOutputStream();
+  private DataOutputStream fields = new DataOutputStream(members);
+  private int fieldCount = 0;
+  private ByteArrayOutputStream methodBytes = new ByteArrayOutputStream();
+  private DataOutputStream methods = new DataOutputStream(methodBytes);
+  private int methodCount = 0;
+
+  private String name;
+  private String superName;
+
+  /**
+   * @param name internal name of the class
+   * @param superName internal name of the super class
+   */
+  ClassFile(String name, String superName) {
+    this.name = name;
+    this.superName = superName;
+  }
+
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Constant pool.
+   */
+
+  private int constant(String key, int tag, int first, int second, String utf) {
+    Integer index = constantIndices.get(key);
+    if(index != null) return index;
+
+    try {
+      constantPool.writeByte(tag);
+      if(utf != null) {
+        constantPool.writeUTF(utf);
+      } else {
+        constantPool.writeShort(first);
+        if(second >= 0) constantPool.writeShort(second);
+      }
+    } catch(IOException e) {
+      throw new RuntimeException(e);
+    }
+    constantIndices.put(key, constantCount);
+    return constantCount++;
+  }
+
+  int utf8(String string) {
+    return constant("U" + string, 1, 0, 0, string);
+  }
+
+  int classReference(String internalName) {
+    return constant("C" + internalName, 7, utf8(internalName), -1, null);
+  }
+
+  int string(String string) {
+    return constant("S" + string, 8, utf8(string), -1, null);
+  }
+
+  private int nameAndType(String name, String descriptor) {
+    return constant("N" + name + " " + descriptor, 12, utf8(name), utf8(descriptor), null);
+  }
+
+  int fieldReference(String owner, String name, String descriptor) {
+    return constant("F" + owner + "." + name + " " + descriptor, 9, classReference(owner), nameAndType(name, descriptor), null);
+  }
+
+  int methodReference(String owner, String name, String descriptor) {
+    return constant("M" + owner + "." + name + " " + descriptor, 10, classReference(owner), nameAndType(name, descriptor), null);
+  }
+
+  /**
+   * Members.
+   */
+
+  void addField(String name, String descriptor) {
+    try {
+      fields.writeShort(ACC_PRIVATE | ACC_FINAL);
+      fields.writeShort(utf8(name));
+      fields.writeShort(utf8(descriptor));
+      fields.writeShort(0);
+    } catch(IOException e) {
+      throw new RuntimeException(e);
+    }
+    fieldCount++;
+  }
+
+  void addMethod(String name, String descriptor, boolean isPublic, Code code) {
+    try {
+      byte[] bytes = code.toByteArray();
+      methods.writeShort(isPublic ? ACC_PUBLIC : ACC_PROTECTED);
+      methods.writeShort(utf8(name));
+      methods.writeShort(utf8(descriptor));
+      methods.writeShort(1);
+      methods.writeShort(utf8("Code"));
+      methods.writeInt(12 + bytes.length);
+      methods.writeShort(code.getMaxStack());
+      methods.writeShort(code.getMaxLocals());
+      methods.writeInt(bytes.length);
+      methods.write(bytes);
+      methods.writeShort(0);
+      methods.writeShort(0);
+    } catch(IOException e) {
+      throw new RuntimeException(e);
+    }
+    methodCount++;
+  }
+
+  byte[] toByteArray() {
+    int thisIndex = classReference(name);
+    int superIndex = classReference(superName);
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    try {
+      out.writeInt(0xCAFEBABE);
+      out.writeShort(0);
+      out.writeShort(49);
+      out.writeShort(constantCount);
+      out.write(constants.toByteArray());
+      out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+      out.writeShort(thisIndex);
+      out.writeShort(superIndex);
+      out.writeShort(0);
+      out.writeShort(fieldCount);
+      out.write(members.toByteArray());
+      out.writeShort(methodCount);
+      out.write(methodBytes.toByteArray());
+      out.writeShort(0);
+    } catch(IOException e) {
+      throw new RuntimeException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * Bytecode of a method, tracking the operand stack depth.
+   */
+  static final class Code {
+    private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private int stack = 0;
+    private int maxStack = 0;
+    private int maxLocals;
+
+    Code(int maxLocals) {
+      this.maxLocals = maxLocals;
+    }
+
+    /**
+     * @param opcode instruction
+     * @param operand constant pool index or local, or -1 if there is none
+     * @param stackChange change of the operand stack depth
+     */
+    void emit(int opcode, int operand, int stackChange) {
+      bytes.write(opcode);
+      if(operand >= 0) {
+        if(opcode == ALOAD) {
+          bytes.write(operand);
+        } else {
+          bytes.write(operand >> 8);
+          bytes.write(operand & 0xff);
+        }
+      }
+      stack += stackChange;
+      maxStack = Math.max(maxStack, stack);
+    }
+
+    int getMaxStack() {
+      return maxStack;
+    }
+
+    int getMaxLocals() {
+      return maxLocals;
+    }
+
+    byte[] toByteArray() {
+      return bytes.toByteArray();
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package lambda.engine.jit;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * Compiled term. Every evaluation needs a new instance, since thunks keep
+ * their values.
+ */
+public class CompiledTerm {
+  private Constructor<?> constructor;
+  private int classCount;
+
+  CompiledTerm(Constructor<?> constructor, int classCount) {
+    this.constructor = constructor;
+    this.classCount = classCount;
+  }
+
+  /**
+   * @return number of classes generated for the term
+   */
+  public int getClassCount() {
+    return classCount;
+  }
+
+  public Thunk newInstance() {
+    try {
+      return (Thunk) constructor.newInstance();
+    } catch(Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
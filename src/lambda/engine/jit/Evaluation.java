@@ -0,0 +1,130 @@
+package lambda.engine.jit;
+
+import lambda.engine.DeBruijnTerm;
+import lambda.engine.Governor;
+import lambda.engine.Limit;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Run of compiled code. Compiled code recurses on the Java stack, so it
+ * runs on worker threads with a large stack, which are kept for later
+ * evaluations; it also reports the beta steps to the governor.
+ */
+final class Evaluation implements Runnable {
+  private static final long stackSize = 1L << 30;
+
+  private static final ExecutorService workers = Executors.newCachedThreadPool(new ThreadFactory() {
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Worker(runnable);
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private Thunk program;
+  private Governor governor;
+  private DeBruijnTerm normalForm;
+  private Limit limit;
+
+  Evaluation(Thunk program, Governor governor) {
+    this.program = program;
+    this.governor = governor;
+  }
+
+  /**
+   * Runs the evaluation on a worker thread.
+   */
+  Future<?> start() {
+    return workers.submit(this);
+  }
+
+  /**
+   * @return the normal form or null if a limit was reached
+   */
+  DeBruijnTerm getNormalForm() {
+    return normalForm;
+  }
+
+  /**
+   * @return the limit which stopped the evaluation, or null
+   */
+  Limit getLimit() {
+    return limit;
+  }
+
+  public void run() {
+    Worker worker = (Worker) Thread.currentThread();
+    worker.evaluation = this;
+    try {
+      normalForm = readBack(program.force(), 0);
+    } catch(StepLimit e) {
+      normalForm = null;
+      limit = governor.getExceeded();
+    } catch(StackOverflowError e) {
+      normalForm = null;
+      limit = Limit.STACK;
+    } finally {
+      worker.evaluation = null;
+    }
+  }
+
+  /**
+   * Counts a beta step of the current evaluation and stops it when a limit
+   * is reached or the evaluation was interrupted.
+   */
+  static void step() {
+    Thread thread = Thread.currentThread();
+    if(!(thread instanceof Worker)) return;
+
+    Evaluation evaluation = ((Worker) thread).evaluation;
+    if(evaluation != null && !evaluation.governor.step()) throw StepLimit.instance;
+  }
+
+  /**
+   * Reads a value back into a term in normal form. Functions are entered
+   * with a neutral argument, which does not count as a step.
+   */
+  private DeBruijnTerm readBack(Value value, int depth) {
+    if(value instanceof Function) {
+      Function function = (Function) value;
+      Value body = function.enter(Thunk.of(Neutral.level(depth)));
+      return DeBruijnTerm.abstraction(function.getName(), readBack(body, depth + 1));
+    }
+
+    ArrayList<Thunk> arguments = new ArrayList<Thunk>();
+    Neutral neutral = (Neutral) value;
+    while(neutral.function != null) {
+      arguments.add(neutral.argument);
+      neutral = neutral.function;
+    }
+
+    DeBruijnTerm term = neutral.name != null ? DeBruijnTerm.free(neutral.name) : DeBruijnTerm.bound(depth - 1 - neutral.level);
+    for(int i = arguments.size() - 1; i >= 0; i--) {
+      term = DeBruijnTerm.application(term, readBack(arguments.get(i).force(), depth));
+    }
+    return term;
+  }
+
+  private static final class Worker extends Thread {
+    Evaluation evaluation;
+
+    Worker(Runnable runnable) {
+      super(null, runnable, "jit", stackSize);
+    }
+  }
+
+  private static final class StepLimit extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    static final StepLimit instance = new StepLimit();
+
+    public Throwable fillInStackTrace() {
+      return this;
+    }
+  }
+}
@@ -0,0 +1,30 @@
+package lambda.engine.jit;
+
+/**
+ * Compiled abstraction. Compiled code subclasses it for every abstraction,
+ * with one field for every captured variable.
+ */
+public abstract class Function extends Value {
+  private String name;
+
+  protected Function(String name) {
+    this.name = name;
+  }
+
+  /**
+   * @return binder name of the abstraction
+   */
+  public String getName() {
+    return name;
+  }
+
+  public final Value apply(Thunk argument) {
+    Evaluation.step();
+    return enter(argument);
+  }
+
+  /**
+   * Evaluates the body with the variable bound to the argument.
+   */
+  protected abstract Value enter(Thunk argument);
+}
@@ -0,0 +1,239 @@
+package lambda.engine.jit;
+
+import lambda.engine.DeBruijnTerm;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Compiles terms to JVM classes: every abstraction becomes a subclass of
+ * Function and every argument which is an application a subclass of Thunk,
+ * with a field for each variable they capture. Compiled terms are cached
+ * per alpha equivalence class, so hot terms run the same classes and get
+ * optimized by the JVM.
+ */
+public class JitCompiler {
+  private static final String packageName = "lambda/engine/jit/code/";
+  private static final String thunk = "lambda/engine/jit/Thunk";
+  private static final String value = "lambda/engine/jit/Value";
+  private static final String function = "lambda/engine/jit/Function";
+  private static final String neutral = "lambda/engine/jit/Neutral";
+  private static final String thunkType = "L" + thunk + ";";
+  private static final String valueType = "L" + value + ";";
+
+  private static final int cacheSize = 64;
+  private static final LinkedHashMap<DeBruijnTerm, CompiledTerm> cache = new LinkedHashMap<DeBruijnTerm, CompiledTerm>(cacheSize, 0.75f, true) {
+    protected boolean removeEldestEntry(Map.Entry<DeBruijnTerm, CompiledTerm> eldest) {
+      return size() > cacheSize;
+    }
+  };
+
+  private HashMap<String, byte[]> classes = new HashMap<String, byte[]>();
+  private int counter = 0;
+
+  private JitCompiler() {
+  }
+
+  /**
+   * Returns the compiled term, compiling it only if no alpha equivalent
+   * term is cached.
+   */
+  public static CompiledTerm compile(DeBruijnTerm term) {
+    synchronized(cache) {
+      CompiledTerm compiled = cache.get(term);
+      if(compiled != null) return compiled;
+    }
+
+    CompiledTerm compiled = new JitCompiler().compileTerm(term);
+    synchronized(cache) {
+      cache.put(term, compiled);
+    }
+    return compiled;
+  }
+
+  private CompiledTerm compileTerm(DeBruijnTerm term) {
+    String name = generateThunk(term, new int[0]);
+    try {
+      Class<?> compiled = new Loader(classes).loadClass(name.replace('/', '.'));
+      return new CompiledTerm(compiled.getConstructor(), classes.size());
+    } catch(Exception e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  /**
+   * Class generation.
+   */
+
+  private String generateFunction(DeBruijnTerm abstraction, int[] captured) {
+    ClassFile classFile = new ClassFile(packageName + "F" + (counter++), function);
+
+    ClassFile.Code init = constructor(classFile, captured.length);
+    init.emit(ClassFile.LDC_W, classFile.string(abstraction.getName()), 1);
+    init.emit(ClassFile.INVOKESPECIAL, classFile.methodReference(function, "<init>", "(Ljava/lang/String;)V"), -2);
+    storeFields(classFile, init, captured.length);
+
+    ClassFile.Code enter = new ClassFile.Code(2);
+    emitValue(classFile, enter, abstraction.getBody(), true, captured);
+    enter.emit(ClassFile.ARETURN, -1, -1);
+    classFile.addMethod("enter", "(" + thunkType + ")" + valueType, false, enter);
+
+    classes.put(classFile.getName(), classFile.toByteArray());
+    return classFile.getName();
+  }
+
+  private String generateThunk(DeBruijnTerm term, int[] captured) {
+    ClassFile classFile = new ClassFile(packageName + "T" + (counter++), thunk);
+
+    ClassFile.Code init = constructor(classFile, captured.length);
+    init.emit(ClassFile.INVOKESPECIAL, classFile.methodReference(thunk, "<init>", "()V"), -1);
+    storeFields(classFile, init, captured.length);
+
+    ClassFile.Code compute = new ClassFile.Code(1);
+    emitValue(classFile, compute, term, false, captured);
+    compute.emit(ClassFile.ARETURN, -1, -1);
+    classFile.addMethod("compute", "()" + valueType, false, compute);
+
+    classes.put(classFile.getName(), classFile.toByteArray());
+    return classFile.getName();
+  }
+
+  private static ClassFile.Code constructor(ClassFile classFile, int fieldCount) {
+    if(fieldCount > 254) throw new IllegalArgumentException("Too many captured variables.");
+
+    for(int i = 0; i < fieldCount; i++) classFile.addField("c" + i, thunkType);
+    ClassFile.Code init = new ClassFile.Code(1 + fieldCount);
+    init.emit(ClassFile.ALOAD_0, -1, 1);
+    return init;
+  }
+
+  private static void storeFields(ClassFile classFile, ClassFile.Code init, int fieldCount) {
+    for(int i = 0; i < fieldCount; i++) {
+      init.emit(ClassFile.ALOAD_0, -1, 1);
+      init.emit(ClassFile.ALOAD, i + 1, 1);
+      init.emit(ClassFile.PUTFIELD, classFile.fieldReference(classFile.getName(), "c" + i, thunkType), -2);
+    }
+    init.emit(ClassFile.RETURN, -1, 0);
+    classFile.addMethod("<init>", constructorDescriptor(fieldCount), true, init);
+  }
+
+  private static String constructorDescriptor(int fieldCount) {
+    StringBuilder descriptor = new StringBuilder("(");
+    for(int i = 0; i < fieldCount; i++) descriptor.append(thunkType);
+    return descriptor.append(")V").toString();
+  }
+
+  /**
+   * Code generation. Variables are the parameter of enter (index 0, if
+   * hasParameter) or fields holding the captured variables.
+   */
+
+  private void emitValue(ClassFile classFile, ClassFile.Code code, DeBruijnTerm term, boolean hasParameter, int[] captured) {
+    switch(term.getTag()) {
+      case DeBruijnTerm.BOUND:
+        emitVariable(classFile, code, term.getIndex(), hasParameter, captured);
+        code.emit(ClassFile.INVOKEVIRTUAL, classFile.methodReference(thunk, "force", "()" + valueType), 0);
+        break;
+
+      case DeBruijnTerm.FREE:
+        code.emit(ClassFile.LDC_W, classFile.string(term.getName()), 1);
+        code.emit(ClassFile.INVOKESTATIC, classFile.methodReference(neutral, "free", "(Ljava/lang/String;)" + valueType), 0);
+        break;
+
+      case DeBruijnTerm.ABSTRACTION:
+        int[] variables = freeIndices(term);
+        emitNew(classFile, code, generateFunction(term, variables), variables, hasParameter, captured);
+        break;
+
+      case DeBruijnTerm.APPLICATION:
+        emitValue(classFile, code, term.getLeft(), hasParameter, captured);
+        emitThunk(classFile, code, term.getRight(), hasParameter, captured);
+        code.emit(ClassFile.INVOKEVIRTUAL, classFile.methodReference(value, "apply", "(" + thunkType + ")" + valueType), -1);
+        break;
+    }
+  }
+
+  private void emitThunk(ClassFile classFile, ClassFile.Code code, DeBruijnTerm term, boolean hasParameter, int[] captured) {
+    switch(term.getTag()) {
+      case DeBruijnTerm.BOUND:
+        emitVariable(classFile, code, term.getIndex(), hasParameter, captured);
+        break;
+
+      case DeBruijnTerm.APPLICATION:
+        int[] variables = freeIndices(term);
+        emitNew(classFile, code, generateThunk(term, variables), variables, hasParameter, captured);
+        break;
+
+      default:
+        emitValue(classFile, code, term, hasParameter, captured);
+        code.emit(ClassFile.INVOKESTATIC, classFile.methodReference(thunk, "of", "(" + valueType + ")" + thunkType), 0);
+    }
+  }
+
+  private void emitNew(ClassFile classFile, ClassFile.Code code, String className, int[] variables, boolean hasParameter, int[] captured) {
+    code.emit(ClassFile.NEW, classFile.classReference(className), 1);
+    code.emit(ClassFile.DUP, -1, 1);
+    for(int variable : variables) emitVariable(classFile, code, variable, hasParameter, captured);
+    code.emit(ClassFile.INVOKESPECIAL, classFile.methodReference(className, "<init>", constructorDescriptor(variables.length)), -1 - variables.length);
+  }
+
+  private void emitVariable(ClassFile classFile, ClassFile.Code code, int index, boolean hasParameter, int[] captured) {
+    if(hasParameter && index == 0) {
+      code.emit(ClassFile.ALOAD_1, -1, 1);
+      return;
+    }
+
+    int field = Arrays.binarySearch(captured, hasParameter ? index - 1 : index);
+    code.emit(ClassFile.ALOAD_0, -1, 1);
+    code.emit(ClassFile.GETFIELD, classFile.fieldReference(classFile.getName(), "c" + field, thunkType), 0);
+  }
+
+  /**
+   * @return sorted de Bruijn indices of the free bound variables of a term
+   */
+  private static int[] freeIndices(DeBruijnTerm term) {
+    TreeSet<Integer> indices = new TreeSet<Integer>();
+    freeIndices(term, 0, indices);
+
+    int[] result = new int[indices.size()];
+    int i = 0;
+    for(int index : indices) result[i++] = index;
+    return result;
+  }
+
+  private static void freeIndices(DeBruijnTerm term, int depth, TreeSet<Integer> indices) {
+    switch(term.getTag()) {
+      case DeBruijnTerm.BOUND:
+        if(term.getIndex() >= depth) indices.add(term.getIndex() - depth);
+        break;
+      case DeBruijnTerm.ABSTRACTION:
+        freeIndices(term.getBody(), depth + 1, indices);
+        break;
+      case DeBruijnTerm.APPLICATION:
+        freeIndices(term.getLeft(), depth, indices);
+        freeIndices(term.getRight(), depth, indices);
+        break;
+    }
+  }
+
+  /**
+   * Loads the classes of one compiled term.
+   */
+  private static final class Loader extends ClassLoader {
+    private HashMap<String, byte[]> classes;
+
+    Loader(HashMap<String, byte[]> classes) {
+      super(JitCompiler.class.getClassLoader());
+      this.classes = classes;
+    }
+
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+      byte[] bytes = classes.get(name.replace('.', '/'));
+      if(bytes == null) throw new ClassNotFoundException(name);
+      return defineClass(name, bytes, 0, bytes.length);
+    }
+  }
+}
@@ -0,0 +1,40 @@
+package lambda.engine.jit;
+
+import lambda.LambdaTerm;
+import lambda.engine.DeBruijnTerm;
+import lambda.engine.Engine;
+import lambda.engine.Governor;
+import lambda.engine.Limit;
+import lambda.engine.Names;
+import lambda.engine.Result;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Call-by-need normalization by compiling to JVM classes.
+ */
+public class JitEngine implements Engine {
+  public String getName() {
+    return "jit";
+  }
+
+  public Result normalize(LambdaTerm term, Governor governor) {
+    CompiledTerm compiled = JitCompiler.compile(DeBruijnTerm.fromTerm(term));
+
+    Evaluation evaluation = new Evaluation(compiled.newInstance(), governor);
+    Future<?> running = evaluation.start();
+    try {
+      running.get();
+    } catch(InterruptedException e) {
+      running.cancel(true);
+      Thread.currentThread().interrupt();
+      return new Result(null, governor.getSteps(), Limit.INTERRUPTED);
+    } catch(ExecutionException e) {
+      throw new RuntimeException(e.getCause());
+    }
+
+    DeBruijnTerm normalForm = evaluation.getNormalForm();
+    return new Result(normalForm != null ? normalForm.toTerm(new Names(term)) : null, governor.getSteps(), evaluation.getLimit());
+  }
+}
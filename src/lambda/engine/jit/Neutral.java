@@ -0,0 +1,30 @@
+package lambda.engine.jit;
+
+/**
+ * Free variable, or variable introduced by read back, applied to arguments.
+ */
+public final class Neutral extends Value {
+  final String name;
+  final int level;
+  final Neutral function;
+  final Thunk argument;
+
+  private Neutral(String name, int level, Neutral function, Thunk argument) {
+    this.name = name;
+    this.level = level;
+    this.function = function;
+    this.argument = argument;
+  }
+
+  public static Value free(String name) {
+    return new Neutral(name, -1, null, null);
+  }
+
+  static Neutral level(int level) {
+    return new Neutral(null, level, null, null);
+  }
+
+  public Value apply(Thunk argument) {
+    return new Neutral(name, level, this, argument);
+  }
+}
@@ -0,0 +1,34 @@
+package lambda.engine.jit;
+
+/**
+ * Suspended computation of a value. The value is computed at most once.
+ * Compiled code subclasses it for every argument which is not a variable.
+ */
+public abstract class Thunk {
+  private Value value;
+
+  protected Thunk() {
+  }
+
+  private Thunk(Value value) {
+    this.value = value;
+  }
+
+  public final Value force() {
+    if(value == null) value = compute();
+    return value;
+  }
+
+  protected abstract Value compute();
+
+  /**
+   * Thunk of an already computed value.
+   */
+  public static Thunk of(Value value) {
+    return new Thunk(value) {
+      protected Value compute() {
+        throw new IllegalStateException("Value already computed.");
+      }
+    };
+  }
+}
@@ -0,0 +1,8 @@
+package lambda.engine.jit;
+
+/**
+ * Value computed by compiled code: a function or a neutral term.
+ */
+public abstract class Value {
+  public abstract Value apply(Thunk argument);
+}
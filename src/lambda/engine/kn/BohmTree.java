@@ -0,0 +1,113 @@
+package lambda.engine.kn;
+
+import lambda.LambdaTerm;
+import lambda.engine.DeBruijnTerm;
+
+import java.util.ArrayList;
+
+/**
+ * Node of the Böhm tree of a term: a head normal form
+ * λx1...λxn.h M1 ... Mk whose arguments are only reduced on demand.
+ * Arguments are not kept once computed, so walking down an infinite tree
+ * needs no more memory than the path to the current node.
+ */
+public class BohmTree {
+  private int maxSteps;
+  private int steps;
+  private String[] binders;
+  private int depth;
+  private String name;
+  private int level;
+  Closure[] arguments;
+
+  BohmTree(KnMachine machine, ArrayList<String> binders, int depth, String name, int level, ArrayList<Closure> arguments) {
+    this.maxSteps = machine.getMaxSteps();
+    this.steps = machine.getSteps();
+    this.binders = binders.toArray(new String[binders.size()]);
+    this.depth = depth;
+    this.name = name;
+    this.level = level;
+
+    // the machine keeps the first argument last
+    this.arguments = new Closure[arguments.size()];
+    for(int i = 0; i < this.arguments.length; i++) this.arguments[i] = arguments.get(arguments.size() - 1 - i);
+  }
+
+  /**
+   * Computes the root of the Böhm tree.
+   *
+   * @param maxSteps step budget for the head normal form of every node
+   * @return the root or null if the term has no head normal form within the budget
+   */
+  public static BohmTree of(LambdaTerm term, int maxSteps) {
+    return new KnMachine(maxSteps).headNormalForm(new Closure(DeBruijnTerm.fromTerm(term), null), 0);
+  }
+
+  /**
+   * @return names of the binders λx1...λxn
+   */
+  public String[] getBinders() {
+    return binders;
+  }
+
+  /**
+   * @return number of binders in scope of the head, including those of enclosing nodes
+   */
+  public int getDepth() {
+    return depth;
+  }
+
+  public boolean isHeadFree() {
+    return name != null;
+  }
+
+  /**
+   * @return name of the head if it is a free variable
+   */
+  public String getHeadName() {
+    return name;
+  }
+
+  /**
+   * @return level of the binder of a bound head, counted from the root
+   */
+  public int getHeadLevel() {
+    return level;
+  }
+
+  /**
+   * @return the head as free variable or de Bruijn index
+   */
+  public DeBruijnTerm getHead() {
+    return name != null ? DeBruijnTerm.free(name) : DeBruijnTerm.bound(depth - 1 - level);
+  }
+
+  public int getArgumentCount() {
+    return arguments.length;
+  }
+
+  /**
+   * Computes the Böhm tree of an argument. Each call computes it again,
+   * with a budget of its own, so one argument without head normal form does
+   * not hide the others.
+   *
+   * @return the argument or null if it has no head normal form within the budget
+   */
+  public BohmTree getArgument(int i) {
+    return getArgument(i, maxSteps);
+  }
+
+  /**
+   * Computes the Böhm tree of an argument with the given budget.
+   */
+  public BohmTree getArgument(int i, int maxSteps) {
+    return new KnMachine(maxSteps).headNormalForm(arguments[i], depth);
+  }
+
+  /**
+   * @return steps spent on the head normal form of this node
+   */
+  public int getSteps() {
+    return steps;
+  }
+}
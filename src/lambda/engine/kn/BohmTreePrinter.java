@@ -0,0 +1,142 @@
+package lambda.engine.kn;
+
+import lambda.LambdaTerm;
+import lambda.engine.Names;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+
+/**
+ * Streams the Böhm tree of a term as text, depth first. Everything written
+ * is final, and the writer is flushed after every head, so the output can
+ * be shown while it grows. When descending into the last argument of a
+ * node the node is dropped, so infinite right spines such as the tree of
+ * Y a are printed in constant memory.
+ */
+public class BohmTreePrinter {
+  private int maxCharacters;
+  private int written;
+
+  /**
+   * @param maxCharacters number of characters after which the output is cut off with "..."
+   */
+  public BohmTreePrinter(int maxCharacters) {
+    this.maxCharacters = maxCharacters;
+  }
+
+  /**
+   * Prints the Böhm tree of a term. Subtrees without head normal form
+   * within the step budget are printed as "...". Interrupting the thread
+   * ends the output with "...".
+   */
+  public void print(LambdaTerm term, int maxSteps, Writer out) throws IOException {
+    print(BohmTree.of(term, maxSteps), new Names(term), out);
+  }
+
+  public void print(BohmTree tree, Names names, Writer out) throws IOException {
+    written = 0;
+    ArrayList<String> scope = new ArrayList<String>();
+    ArrayList<Object> stack = new ArrayList<Object>();
+
+    stack.add(new Visit(tree, false));
+    while(!stack.isEmpty()) {
+      if(written >= maxCharacters || Thread.currentThread().isInterrupted()) {
+        out.write("...");
+        break;
+      }
+
+      Object item = stack.remove(stack.size() - 1);
+
+      if(item instanceof Visit) {
+        Visit visit = (Visit) item;
+        BohmTree node = visit.tree;
+        if(node == null) {
+          write(out, "...");
+          continue;
+        }
+
+        boolean parenthesize = visit.isArgument && (node.getBinders().length > 0 || node.getArgumentCount() > 0);
+        if(parenthesize) write(out, "(");
+        for(String binder : node.getBinders()) {
+          String name = names.fresh(binder);
+          scope.add(name);
+          write(out, "\u03BB" + name + ".");
+        }
+        write(out, node.isHeadFree() ? node.getHeadName() : scope.get(node.getHeadLevel()));
+        out.flush();
+
+        Close close = new Close(parenthesize ? 1 : 0, node.getBinders().length);
+        if(node.getArgumentCount() == 0) {
+          close(close, scope, names, out);
+        } else {
+          stack.add(close);
+          stack.add(new Frame(node));
+        }
+      } else if(item instanceof Frame) {
+        Frame frame = (Frame) item;
+        write(out, " ");
+        int argument = frame.next++;
+
+        if(frame.next < frame.tree.getArgumentCount()) {
+          stack.add(frame);
+        } else if(stack.size() >= 2 && stack.get(stack.size() - 2) instanceof Close) {
+          // last argument: merge the closing of this node into the enclosing one
+          Close close = (Close) stack.remove(stack.size() - 1);
+          Close enclosing = (Close) stack.get(stack.size() - 1);
+          enclosing.parentheses += close.parentheses;
+          enclosing.binders += close.binders;
+        }
+        stack.add(new Visit(frame.tree.getArgument(argument), true));
+      } else {
+        close((Close) item, scope, names, out);
+      }
+    }
+    out.flush();
+  }
+
+  private void close(Close close, ArrayList<String> scope, Names names, Writer out) throws IOException {
+    for(int i = 0; i < close.parentheses; i++) write(out, ")");
+    for(int i = 0; i < close.binders; i++) names.release(scope.remove(scope.size() - 1));
+  }
+
+  private void write(Writer out, String string) throws IOException {
+    out.write(string);
+    written += string.length();
+  }
+
+  private static final class Visit {
+    BohmTree tree;
+    boolean isArgument;
+
+    Visit(BohmTree tree, boolean isArgument) {
+      this.tree = tree;
+      this.isArgument = isArgument;
+    }
+  }
+
+  /**
+   * Node whose arguments are being printed.
+   */
+  private static final class Frame {
+    BohmTree tree;
+    int next = 0;
+
+    Frame(BohmTree tree) {
+      this.tree = tree;
+    }
+  }
+
+  /**
+   * Closing parentheses and binders going out of scope after a node.
+   */
+  private static final class Close {
+    int parentheses;
+    int binders;
+
+    Close(int parentheses, int binders) {
+      this.parentheses = parentheses;
+      this.binders = binders;
+    }
+  }
+}
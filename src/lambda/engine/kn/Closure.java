@@ -0,0 +1,29 @@
+package lambda.engine.kn;
+
+import lambda.engine.DeBruijnTerm;
+
+/**
+ * Suspended term with its environment, or a variable bound by an
+ * abstraction the machine went under, identified by its level.
+ */
+final class Closure {
+  final DeBruijnTerm term;
+  final Environment environment;
+  final int level;
+
+  Closure(DeBruijnTerm term, Environment environment) {
+    this.term = term;
+    this.environment = environment;
+    this.level = -1;
+  }
+
+  Closure(int level) {
+    this.term = null;
+    this.environment = null;
+    this.level = level;
+  }
+
+  boolean isLevel() {
+    return term == null;
+  }
+}
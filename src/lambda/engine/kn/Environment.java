@@ -0,0 +1,19 @@
+package lambda.engine.kn;
+
+/**
+ * Persistent environment: the closure for de Bruijn index 0 followed by the rest.
+ */
+final class Environment {
+  final Closure closure;
+  final Environment next;
+
+  Environment(Closure closure, Environment next) {
+    this.closure = closure;
+    this.next = next;
+  }
+
+  static Closure lookup(Environment environment, int index) {
+    while(index-- > 0) environment = environment.next;
+    return environment.closure;
+  }
+}
@@ -0,0 +1,23 @@
+package lambda.engine.kn;
+
+import lambda.LambdaTerm;
+import lambda.engine.DeBruijnTerm;
+import lambda.engine.Engine;
+import lambda.engine.Governor;
+import lambda.engine.Names;
+import lambda.engine.Result;
+
+/**
+ * Normal order normalization with the strong KN machine.
+ */
+public class KnEngine implements Engine {
+  public String getName() {
+    return "kn";
+  }
+
+  public Result normalize(LambdaTerm term, Governor governor) {
+    KnMachine machine = new KnMachine(governor);
+    DeBruijnTerm normalForm = machine.normalize(DeBruijnTerm.fromTerm(term));
+    return new Result(normalForm != null ? normalForm.toTerm(new Names(term)) : null, governor.getSteps(), governor.getExceeded());
+  }
+}
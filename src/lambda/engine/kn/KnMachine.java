@@ -0,0 +1,152 @@
+package lambda.engine.kn;
+
+import lambda.engine.DeBruijnTerm;
+import lambda.engine.Governor;
+
+import java.util.ArrayList;
+
+/**
+ * Crégut's KN machine: a Krivine machine which also reduces under
+ * abstractions and in the arguments of head normal forms. It performs the
+ * beta steps of normal order reduction, but passes arguments as closures
+ * instead of substituting them, so every step takes constant time.
+ */
+public class KnMachine {
+  private Governor governor;
+
+  public KnMachine(int maxSteps) {
+    this(new Governor(maxSteps));
+  }
+
+  public KnMachine(Governor governor) {
+    this.governor = governor;
+  }
+
+  public int getSteps() {
+    return governor.getSteps();
+  }
+
+  public int getMaxSteps() {
+    return governor.getMaxSteps();
+  }
+
+  /**
+   * Computes the beta normal form.
+   *
+   * @return the normal form or null if the step limit was reached
+   */
+  public DeBruijnTerm normalize(DeBruijnTerm term) {
+    ArrayList<Object> work = new ArrayList<Object>();
+    ArrayList<DeBruijnTerm> results = new ArrayList<DeBruijnTerm>();
+
+    work.add(new Normalize(new Closure(term, null), 0));
+    while(!work.isEmpty()) {
+      Object item = work.remove(work.size() - 1);
+
+      if(item instanceof Build) {
+        Build build = (Build) item;
+        if(build.head == null) {
+          results.add(DeBruijnTerm.abstraction(build.name, results.remove(results.size() - 1)));
+        } else {
+          DeBruijnTerm head = build.head;
+          int first = results.size() - build.argumentCount;
+          for(int i = first; i < results.size(); i++) head = DeBruijnTerm.application(head, results.get(i));
+          while(results.size() > first) results.remove(results.size() - 1);
+          results.add(head);
+        }
+        continue;
+      }
+
+      Normalize normalize = (Normalize) item;
+      BohmTree tree = headNormalForm(normalize.closure, normalize.depth);
+      if(tree == null) return null;
+
+      for(String binder : tree.getBinders()) work.add(new Build(binder, null, 0));
+      work.add(new Build(null, tree.getHead(), tree.getArgumentCount()));
+
+      // normalize the arguments from left to right
+      for(int i = tree.getArgumentCount() - 1; i >= 0; i--) work.add(new Normalize(tree.arguments[i], tree.getDepth()));
+    }
+    return results.get(0);
+  }
+
+  /**
+   * Head reduction of a closure under depth binders.
+   *
+   * @return the head normal form or null if the step limit was reached
+   */
+  BohmTree headNormalForm(Closure closure, int depth) {
+    ArrayList<String> binders = new ArrayList<String>();
+    ArrayList<Closure> arguments = new ArrayList<Closure>();
+    if(closure.isLevel()) return new BohmTree(this, binders, depth, null, closure.level, arguments);
+
+    DeBruijnTerm control = closure.term;
+    Environment environment = closure.environment;
+
+    // the last argument is applied first
+    while(true) {
+      switch(control.getTag()) {
+        case DeBruijnTerm.APPLICATION:
+          // a variable argument is passed as its own closure, so no chains of closures build up
+          DeBruijnTerm argument = control.getRight();
+          if(argument.getTag() == DeBruijnTerm.BOUND) {
+            arguments.add(Environment.lookup(environment, argument.getIndex()));
+          } else {
+            arguments.add(new Closure(argument, environment));
+          }
+          control = control.getLeft();
+          break;
+
+        case DeBruijnTerm.ABSTRACTION:
+          if(arguments.isEmpty()) {
+            binders.add(control.getName());
+            environment = new Environment(new Closure(depth), environment);
+            depth++;
+          } else {
+            if(!governor.step()) return null;
+            environment = new Environment(arguments.remove(arguments.size() - 1), environment);
+          }
+          control = control.getBody();
+          break;
+
+        case DeBruijnTerm.BOUND:
+          Closure variable = Environment.lookup(environment, control.getIndex());
+          if(!variable.isLevel()) {
+            control = variable.term;
+            environment = variable.environment;
+            break;
+          }
+          return new BohmTree(this, binders, depth, null, variable.level, arguments);
+
+        case DeBruijnTerm.FREE:
+          return new BohmTree(this, binders, depth, control.getName(), -1, arguments);
+      }
+    }
+  }
+
+  private static final class Normalize {
+    Closure closure;
+    int depth;
+
+    Normalize(Closure closure, int depth) {
+      this.closure = closure;
+      this.depth = depth;
+    }
+  }
+
+  /**
+   * Builds an abstraction with the given binder name, or applies a head to
+   * the last argumentCount results.
+   */
+  private static final class Build {
+    String name;
+    DeBruijnTerm head;
+    int argumentCount;
+
+    Build(String name, DeBruijnTerm head, int argumentCount) {
+      this.name = name;
+      this.head = head;
+      this.argumentCount = argumentCount;
+    }
+  }
+}
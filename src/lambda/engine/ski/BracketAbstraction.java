@@ -0,0 +1,103 @@
+package lambda.engine.ski;
+
+import lambda.LambdaTerm;
+import lambda.Lambda;
+import lambda.Application;
+import lambda.Variable;
+import lambda.utils.LambdaTermVisitor;
+
+/**
+ * Compiles lambda terms to combinators by bracket abstraction with Turner's
+ * optimizations. Rules which amount to eta reduction are left out, since
+ * the normal forms read back must be beta normal forms.
+ */
+public class BracketAbstraction implements LambdaTermVisitor<Node,Object> {
+  public static Node compile(LambdaTerm term) {
+    return term.visit(new BracketAbstraction(), null);
+  }
+
+  public Node visit(LambdaTerm term, Object o) {
+    throw new RuntimeException("Unkown LambdaTerm.");
+  }
+
+  public Node visit(Lambda lambda, Object o) {
+    Node body = lambda.getTerm().visit(this, o);
+    Node abstracted = abstraction(lambda.getName(), body);
+    return abstracted != null ? abstracted : Node.application(Node.combinator(Combinator.K), body);
+  }
+
+  public Node visit(Application application, Object o) {
+    return Node.application(application.getLeft().visit(this, o), application.getRight().visit(this, o));
+  }
+
+  public Node visit(Variable variable, Object o) {
+    return Node.atom(variable.getName());
+  }
+
+  /**
+   * Computes [x]e.
+   *
+   * @param name variable x
+   * @param node compiled body e, a tree without shared nodes
+   * @return [x]e, or null if x does not occur in e
+   */
+  private static Node abstraction(String name, Node node) {
+    switch(node.tag) {
+      case Node.ATOM:
+        return node.name.equals(name) ? Node.combinator(Combinator.I) : null;
+
+      case Node.APPLICATION:
+        Node left = abstraction(name, node.left);
+        Node right = abstraction(name, node.right);
+        if(left == null && right == null) return null;
+
+        if(left == null) return optimize(constant(node.left), right);
+        if(right == null) return optimize(left, constant(node.right));
+        return optimize(left, right);
+
+      default:
+        return null;
+    }
+  }
+
+  private static Node constant(Node node) {
+    return Node.application(Node.combinator(Combinator.K), node);
+  }
+
+  /**
+   * Builds S p q, applying Turner's rules.
+   */
+  private static Node optimize(Node p, Node q) {
+    if(isApplied(p, Combinator.K)) {
+      // S (K a) (K b) = K (a b)
+      if(isApplied(q, Combinator.K)) return constant(Node.application(p.right, q.right));
+      // S (K a) (B b c) = B* a b c
+      if(isApplied(q.left, Combinator.B)) return apply(Combinator.B1, p.right, q.left.right, q.right);
+      // S (K a) b = B a b
+      return apply(Combinator.B, p.right, q);
+    }
+    if(isApplied(q, Combinator.K)) {
+      // S (B a b) (K c) = C' a b c
+      if(isApplied(p.left, Combinator.B)) return apply(Combinator.C1, p.left.right, p.right, q.right);
+      // S a (K b) = C a b
+      return apply(Combinator.C, p, q.right);
+    }
+    // S (B a b) c = S' a b c
+    if(isApplied(p.left, Combinator.B)) return apply(Combinator.S1, p.left.right, p.right, q);
+
+    return apply(Combinator.S, p, q);
+  }
+
+  /**
+   * Checks whether a node is the given combinator applied to one argument.
+   */
+  private static boolean isApplied(Node node, Combinator combinator) {
+    return node != null && node.tag == Node.APPLICATION && node.left.isCombinator(combinator);
+  }
+
+  private static Node apply(Combinator combinator, Node... arguments) {
+    Node node = Node.combinator(combinator);
+    for(Node argument : arguments) node = Node.application(node, argument);
+    return node;
+  }
+}
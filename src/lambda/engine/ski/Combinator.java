@@ -0,0 +1,37 @@
+package lambda.engine.ski;
+
+/**
+ * Combinators with their arity. S', B* and C' are Turner's extensions that
+ * keep the code produced by bracket abstraction small.
+ */
+public enum Combinator {
+  S(3, 2), K(2, 0), I(1, 0), B(3, 1), C(3, 1), S1(4, 3), B1(4, 2), C1(4, 2);
+
+  private int arity;
+  private int built;
+
+  private Combinator(int arity, int built) {
+    this.arity = arity;
+    this.built = built;
+  }
+
+  public int getArity() {
+    return arity;
+  }
+
+  /**
+   * @return number of application nodes a reduction builds
+   */
+  public int getBuilt() {
+    return built;
+  }
+
+  public String toString() {
+    switch(this) {
+      case S1: return "S'";
+      case B1: return "B*";
+      case C1: return "C'";
+      default: return name();
+    }
+  }
+}
@@ -0,0 +1,150 @@
+package lambda.engine.ski;
+
+import lambda.LambdaTerm;
+import lambda.Lambda;
+import lambda.Application;
+import lambda.Variable;
+import lambda.engine.Governor;
+import lambda.engine.Names;
+
+import java.util.ArrayList;
+
+/**
+ * Lazy graph reduction of combinator graphs with in-place updates.
+ */
+public class GraphReducer {
+  private Governor governor;
+  private ArrayList<Node> spine = new ArrayList<Node>();
+
+  /**
+   * @param governor limits of the reduction; the size is the number of
+   *                 application nodes built
+   */
+  public GraphReducer(Governor governor) {
+    this.governor = governor;
+  }
+
+  public int getSteps() {
+    return governor.getSteps();
+  }
+
+  /**
+   * Reduces a graph to weak head normal form. Afterwards the spine holds the
+   * application nodes from the root to the innermost, followed by the head.
+   *
+   * @return false if a limit was reached
+   */
+  public boolean whnf(Node root) {
+    spine.clear();
+    spine.add(root.deref());
+
+    while(true) {
+      Node node = spine.get(spine.size() - 1);
+
+      if(node.tag == Node.APPLICATION) {
+        spine.add(node.left.deref());
+        continue;
+      }
+      if(node.tag == Node.ATOM) return true;
+
+      int arity = node.combinator.getArity();
+      int top = spine.size() - 1;
+      if(top < arity) return true;
+      if(!governor.step()) return false;
+
+      Node redex = spine.get(top - arity);
+      reduce(node.combinator, redex, top);
+      if(!governor.grow(node.combinator.getBuilt())) return false;
+
+      for(int i = 0; i < arity; i++) spine.remove(spine.size() - 1);
+      spine.set(spine.size() - 1, redex.deref());
+    }
+  }
+
+  private Node argument(int top, int i) {
+    return spine.get(top - i).right;
+  }
+
+  private void reduce(Combinator combinator, Node redex, int top) {
+    Node x = argument(top, 1);
+    Node y = combinator.getArity() > 1 ? argument(top, 2) : null;
+    Node z = combinator.getArity() > 2 ? argument(top, 3) : null;
+    Node w = combinator.getArity() > 3 ? argument(top, 4) : null;
+
+    switch(combinator) {
+      case I: redex.updateIndirection(x); break;
+      case K: redex.updateIndirection(x); break;
+      case S: redex.updateApplication(Node.application(x, z), Node.application(y, z)); break;
+      case B: redex.updateApplication(x, Node.application(y, z)); break;
+      case C: redex.updateApplication(Node.application(x, z), y); break;
+      case S1: redex.updateApplication(Node.application(x, Node.application(y, w)), Node.application(z, w)); break;
+      case B1: redex.updateApplication(x, Node.application(y, Node.application(z, w))); break;
+      case C1: redex.updateApplication(Node.application(x, Node.application(y, w)), z); break;
+    }
+  }
+
+  /**
+   * Reads a graph back into a lambda term in beta normal form. Partial
+   * applications of combinators are applied to a fresh variable. The graph
+   * is read with an explicit stack, so deep normal forms do not exhaust
+   * the Java stack.
+   *
+   * @return the normal form or null if a limit was reached
+   */
+  public LambdaTerm readBack(Node root, Names names) {
+    ArrayList<Object> work = new ArrayList<Object>();
+    ArrayList<LambdaTerm> results = new ArrayList<LambdaTerm>();
+
+    work.add(root);
+    while(!work.isEmpty()) {
+      Object item = work.remove(work.size() - 1);
+      if(item instanceof Build) {
+        Build build = (Build) item;
+        if(build.binder != null) {
+          names.release(build.binder);
+          results.add(new Lambda(build.binder, results.remove(results.size() - 1)));
+        } else {
+          LambdaTerm term = new Variable(build.head);
+          int first = results.size() - build.argumentCount;
+          for(int i = first; i < results.size(); i++) term = new Application(term, results.get(i));
+          while(results.size() > first) results.remove(results.size() - 1);
+          results.add(term);
+        }
+        continue;
+      }
+
+      Node node = (Node) item;
+      if(!whnf(node)) return null;
+
+      Node head = spine.get(spine.size() - 1);
+      if(head.tag == Node.COMBINATOR) {
+        String name = names.fresh("x");
+        work.add(new Build(name, null, 0));
+        work.add(Node.application(node, Node.atom(name)));
+        continue;
+      }
+
+      // the first argument is read first
+      int argumentCount = spine.size() - 1;
+      work.add(new Build(null, head.name, argumentCount));
+      for(int i = 0; i < argumentCount; i++) work.add(spine.get(i).right);
+    }
+    return results.get(0);
+  }
+
+  /**
+   * Builds an abstraction over the binder or applies the head to the
+   * arguments read last.
+   */
+  private static final class Build {
+    String binder;
+    String head;
+    int argumentCount;
+
+    Build(String binder, String head, int argumentCount) {
+      this.binder = binder;
+      this.head = head;
+      this.argumentCount = argumentCount;
+    }
+  }
+}
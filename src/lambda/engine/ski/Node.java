@@ -0,0 +1,107 @@
+package lambda.engine.ski;
+
+/**
+ * Node of the combinator graph. Reduction overwrites nodes in place, so
+ * every node sharing a redex sees its result.
+ */
+public final class Node {
+  public static final int APPLICATION = 0;
+  public static final int COMBINATOR = 1;
+  public static final int ATOM = 2;
+  public static final int INDIRECTION = 3;
+
+  int tag;
+  Node left, right;
+  Combinator combinator;
+  String name;
+
+  private Node(int tag) {
+    this.tag = tag;
+  }
+
+  public static Node application(Node left, Node right) {
+    Node node = new Node(APPLICATION);
+    node.left = left;
+    node.right = right;
+    return node;
+  }
+
+  public static Node combinator(Combinator combinator) {
+    Node node = new Node(COMBINATOR);
+    node.combinator = combinator;
+    return node;
+  }
+
+  /**
+   * Free variable of the compiled term, or variable introduced by read back.
+   */
+  public static Node atom(String name) {
+    Node node = new Node(ATOM);
+    node.name = name;
+    return node;
+  }
+
+  public int getTag() {
+    return tag;
+  }
+
+  public Node getLeft() {
+    return left;
+  }
+
+  public Node getRight() {
+    return right;
+  }
+
+  public Combinator getCombinator() {
+    return combinator;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Follows indirections left by reductions.
+   */
+  public Node deref() {
+    Node node = this;
+    while(node.tag == INDIRECTION) node = node.left;
+    return node;
+  }
+
+  boolean isCombinator(Combinator combinator) {
+    return tag == COMBINATOR && this.combinator == combinator;
+  }
+
+  /**
+   * Overwrites this node with an application.
+   */
+  void updateApplication(Node left, Node right) {
+    tag = APPLICATION;
+    this.left = left;
+    this.right = right;
+    combinator = null;
+    name = null;
+  }
+
+  /**
+   * Overwrites this node with an indirection to another node.
+   */
+  void updateIndirection(Node node) {
+    tag = INDIRECTION;
+    left = node;
+    right = null;
+    combinator = null;
+    name = null;
+  }
+
+  public String toString() {
+    Node node = deref();
+    switch(node.tag) {
+      case APPLICATION: return "(" + node.left + " " + node.right + ")";
+      case COMBINATOR: return node.combinator.toString();
+      default: return node.name;
+    }
+  }
+}
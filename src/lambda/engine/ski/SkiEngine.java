@@ -0,0 +1,23 @@
+package lambda.engine.ski;
+
+import lambda.LambdaTerm;
+import lambda.engine.Engine;
+import lambda.engine.Governor;
+import lambda.engine.Names;
+import lambda.engine.Result;
+
+/**
+ * Normalization by compiling to combinators and graph reduction.
+ */
+public class SkiEngine implements Engine {
+  public String getName() {
+    return "ski";
+  }
+
+  public Result normalize(LambdaTerm term, Governor governor) {
+    Node graph = BracketAbstraction.compile(term);
+    GraphReducer reducer = new GraphReducer(governor);
+    LambdaTerm normalForm = reducer.readBack(graph, new Names(term));
+    return new Result(normalForm, governor.getSteps(), governor.getExceeded());
+  }
+}
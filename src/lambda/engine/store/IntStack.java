@@ -0,0 +1,86 @@
+package lambda.engine.store;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+
+/**
+ * Stack of ints outside the heap, like the nodes of a TermStore, since the
+ * stacks of a reduction grow with the depth of the term.
+ */
+final class IntStack {
+  private static final int CHUNK_BITS = 14;
+  private static final int CHUNK_INTS = 1 << CHUNK_BITS;
+
+  private File directory;
+  private RandomAccessFile mapped;
+  private ArrayList<IntBuffer> chunks = new ArrayList<IntBuffer>();
+  private int size = 0;
+
+  /**
+   * @param directory directory for the file the stack is mapped from, or
+   *                  null for direct buffers
+   */
+  IntStack(File directory) {
+    this.directory = directory;
+  }
+
+  void push(int item) throws IOException {
+    if((size >>> CHUNK_BITS) == chunks.size()) chunks.add(allocate().asIntBuffer());
+    chunks.get(size >>> CHUNK_BITS).put(size & (CHUNK_INTS - 1), item);
+    size++;
+  }
+
+  private ByteBuffer allocate() throws IOException {
+    if(directory == null) return ByteBuffer.allocateDirect(CHUNK_INTS * 4);
+
+    if(mapped == null) {
+      File file = File.createTempFile("stack", ".store", directory);
+      mapped = new RandomAccessFile(file, "rw");
+      if(!file.delete()) file.deleteOnExit();
+    }
+    return mapped.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) chunks.size() * CHUNK_INTS * 4, CHUNK_INTS * 4);
+  }
+
+  int pop() {
+    size--;
+    return get(size);
+  }
+
+  int get(int index) {
+    return chunks.get(index >>> CHUNK_BITS).get(index & (CHUNK_INTS - 1));
+  }
+
+  void set(int index, int item) {
+    chunks.get(index >>> CHUNK_BITS).put(index & (CHUNK_INTS - 1), item);
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  void clear() {
+    size = 0;
+  }
+
+  void truncate(int size) {
+    this.size = size;
+  }
+
+  void close() throws IOException {
+    chunks.clear();
+    size = 0;
+    if(mapped != null) {
+      mapped.close();
+      mapped = null;
+    }
+  }
+}
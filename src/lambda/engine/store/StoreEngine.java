@@ -0,0 +1,91 @@
+package lambda.engine.store;
+
+import lambda.LambdaTerm;
+import lambda.engine.Engine;
+import lambda.engine.Governor;
+import lambda.engine.Names;
+import lambda.engine.Result;
+import lambda.parser.LambdaTermParser;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Normal order reduction in a TermStore outside the Java heap. The system
+ * property lambda.store names a directory for a memory-mapped store, so
+ * terms may even exceed physical memory; otherwise direct buffers are used.
+ *
+ * Direct buffers count against -XX:MaxDirectMemorySize, mapped files do not.
+ *
+ * As a tool it prints the normal form straight from the store, so only the
+ * input term is ever on the heap.
+ *
+ * Usage: StoreEngine file [maxSteps [maxChars]]
+ */
+public class StoreEngine implements Engine {
+  public String getName() {
+    return "store";
+  }
+
+  public Result normalize(LambdaTerm term, Governor governor) {
+    try {
+      TermStore store = open();
+      try {
+        StoreMachine machine = new StoreMachine(store, governor);
+        try {
+          int normalForm = machine.normalize(store.load(term));
+          return new Result(normalForm >= 0 ? store.toTerm(normalForm, new Names(term)) : null, governor.getSteps(), governor.getExceeded());
+        } finally {
+          machine.close();
+        }
+      } finally {
+        store.close();
+      }
+    } catch(IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private static TermStore open() throws IOException {
+    String directory = System.getProperty("lambda.store");
+    return new TermStore(directory != null ? new File(directory) : null);
+  }
+
+  public static void main(String[] args) throws IOException {
+    if(args.length == 0) {
+      System.err.println("Usage: StoreEngine file [maxSteps [maxChars]]");
+      return;
+    }
+    int maxSteps = args.length > 1 ? Integer.parseInt(args[1]) : Integer.MAX_VALUE;
+    int maxChars = args.length > 2 ? Integer.parseInt(args[2]) : Integer.MAX_VALUE;
+
+    String source = new String(Files.readAllBytes(new File(args[0]).toPath()), StandardCharsets.UTF_8);
+    LambdaTerm term = LambdaTermParser.parse(source, true).get("Init");
+
+    TermStore store = open();
+    try {
+      Governor governor = new Governor(maxSteps);
+      StoreMachine machine = new StoreMachine(store, governor);
+      long start = System.nanoTime();
+      int normalForm = machine.normalize(store.load(term));
+      long time = System.nanoTime() - start;
+      machine.close();
+
+      if(normalForm >= 0) {
+        Writer out = new OutputStreamWriter(System.out, StandardCharsets.UTF_8);
+        store.print(normalForm, new Names(term), out, maxChars);
+        out.write('\n');
+        out.flush();
+      } else {
+        System.out.println(governor.getExceeded() + " reached");
+      }
+      System.out.println(String.format("%d steps in %.3f ms, %d nodes", machine.getSteps(), time / 1e6, store.size()));
+    } finally {
+      store.close();
+    }
+  }
+}
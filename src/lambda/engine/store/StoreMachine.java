@@ -0,0 +1,234 @@
+package lambda.engine.store;
+
+import lambda.engine.Governor;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Normal order reduction of terms in a TermStore. A beta step substitutes
+ * the argument into a copy of the body, but subterms without loose indices
+ * are shared instead of copied, so closed arguments are never duplicated.
+ * The store is compacted when it has grown to twice its live size.
+ */
+public class StoreMachine {
+  private static final int NORMALIZE = 0;
+  private static final int BUILD_LAMBDA = 1;
+  private static final int BUILD_APPLICATION = 2;
+
+  private static final int MIN_COMPACTION = 1 << 20;
+
+  private TermStore store;
+  private Governor governor;
+  private int compaction = MIN_COMPACTION;
+
+  // the work stack holds records NORMALIZE node, BUILD_LAMBDA symbol and
+  // BUILD_APPLICATION head count, with the kind on top
+  private IntStack work;
+  private IntStack results;
+  private IntStack arguments;
+
+  // substitution and the shifting of the argument inside it
+  private IntStack substitutionStack;
+  private IntStack substituted;
+  private IntStack shiftStack;
+  private IntStack shifted;
+
+  // roots of a compaction and where in the work stack they came from
+  private IntStack roots;
+  private IntStack positions;
+
+  /**
+   * @param governor limits of the reduction; the size is the number of
+   *                 nodes in the store, including garbage
+   */
+  public StoreMachine(TermStore store, Governor governor) {
+    this.store = store;
+    this.governor = governor;
+    File directory = store.getDirectory();
+    work = new IntStack(directory);
+    results = new IntStack(directory);
+    arguments = new IntStack(directory);
+    substitutionStack = new IntStack(directory);
+    substituted = new IntStack(directory);
+    shiftStack = new IntStack(directory);
+    shifted = new IntStack(directory);
+    roots = new IntStack(directory);
+    positions = new IntStack(directory);
+  }
+
+  public int getSteps() {
+    return governor.getSteps();
+  }
+
+  /**
+   * Computes the beta normal form.
+   *
+   * @return the node of the normal form or -1 if a limit was reached
+   */
+  public int normalize(int term) throws IOException {
+    governor.grow(store.size());
+    work.clear();
+    results.clear();
+    work.push(term);
+    work.push(NORMALIZE);
+    while(!work.isEmpty()) {
+      int kind = work.pop();
+      if(kind == BUILD_LAMBDA) {
+        results.push(store.abstraction(work.pop(), results.pop()));
+        continue;
+      }
+      if(kind == BUILD_APPLICATION) {
+        int count = work.pop();
+        int head = work.pop();
+        int first = results.size() - count;
+        for(int i = first; i < results.size(); i++) head = store.application(head, results.get(i));
+        results.truncate(first);
+        results.push(head);
+        continue;
+      }
+
+      // head reduction, with the arguments of the spine on a stack
+      int t = work.pop();
+      arguments.clear();
+      while(true) {
+        int tag = store.getTag(t);
+        if(tag == TermStore.APPLICATION) {
+          arguments.push(store.getRight(t));
+          t = store.getLeft(t);
+        } else if(tag == TermStore.ABSTRACTION) {
+          if(arguments.isEmpty()) {
+            work.push(store.getSymbol(t));
+            work.push(BUILD_LAMBDA);
+            work.push(store.getBody(t));
+            work.push(NORMALIZE);
+            break;
+          }
+          if(!governor.step()) return -1;
+          int size = store.size();
+          t = substitute(store.getBody(t), arguments.pop());
+          if(store.size() >= compaction) t = compact(t);
+          if(!governor.grow(store.size() - size)) return -1;
+        } else {
+          // normalize the arguments from left to right
+          work.push(t);
+          work.push(arguments.size());
+          work.push(BUILD_APPLICATION);
+          for(int i = 0; i < arguments.size(); i++) {
+            work.push(arguments.get(i));
+            work.push(NORMALIZE);
+          }
+          break;
+        }
+      }
+    }
+    return results.pop();
+  }
+
+  /**
+   * Replaces index 0 of a body by the argument and lowers the other loose
+   * indices by one.
+   */
+  private int substitute(int body, int argument) throws IOException {
+    return rebuild(body, argument, 0, substitutionStack, substituted);
+  }
+
+  /**
+   * Raises the loose indices of a term by an amount.
+   */
+  private int shift(int term, int amount) throws IOException {
+    if(amount == 0 || store.getLoose(term) == 0) return term;
+    return rebuild(term, -1, amount, shiftStack, shifted);
+  }
+
+  /**
+   * Copies the part of a term with loose indices, substituting the argument
+   * if it is not -1 and otherwise shifting by the amount.
+   */
+  private int rebuild(int term, int argument, int amount, IntStack stack, IntStack built) throws IOException {
+    // records node depth visited
+    stack.push(term);
+    stack.push(0);
+    stack.push(0);
+    while(!stack.isEmpty()) {
+      boolean visited = stack.pop() != 0;
+      int depth = stack.pop();
+      int node = stack.pop();
+      if(store.getLoose(node) <= depth) {
+        built.push(node);
+        continue;
+      }
+
+      int tag = store.getTag(node);
+      if(tag == TermStore.BOUND) {
+        int index = store.getIndex(node);
+        if(argument < 0) built.push(store.bound(index + amount));
+        else if(index == depth) built.push(shift(argument, depth));
+        else built.push(store.bound(index - 1));
+      } else if(visited) {
+        if(tag == TermStore.ABSTRACTION) {
+          int body = built.pop();
+          built.push(body == store.getBody(node) ? node : store.abstraction(store.getSymbol(node), body));
+        } else {
+          int right = built.pop();
+          int left = built.pop();
+          built.push(left == store.getLeft(node) && right == store.getRight(node) ? node : store.application(left, right));
+        }
+      } else {
+        stack.push(node);
+        stack.push(depth);
+        stack.push(1);
+        if(tag == TermStore.ABSTRACTION) {
+          stack.push(store.getBody(node));
+          stack.push(depth + 1);
+          stack.push(0);
+        } else {
+          stack.push(store.getRight(node));
+          stack.push(depth);
+          stack.push(0);
+          stack.push(store.getLeft(node));
+          stack.push(depth);
+          stack.push(0);
+        }
+      }
+    }
+    return built.pop();
+  }
+
+  /**
+   * Compacts the store with the nodes on the stacks and the current term
+   * as roots.
+   *
+   * @return the new number of the current term
+   */
+  private int compact(int t) throws IOException {
+    roots.clear();
+    positions.clear();
+    for(int i = work.size() - 1; i >= 0; i--) {
+      int kind = work.get(i);
+      if(kind == NORMALIZE) positions.push(i - 1);
+      else if(kind == BUILD_APPLICATION) positions.push(i - 2);
+      i -= kind == BUILD_APPLICATION ? 2 : 1;
+    }
+    for(int i = 0; i < positions.size(); i++) roots.push(work.get(positions.get(i)));
+    for(int i = 0; i < results.size(); i++) roots.push(results.get(i));
+    for(int i = 0; i < arguments.size(); i++) roots.push(arguments.get(i));
+    roots.push(t);
+
+    store.compact(roots);
+
+    int r = 0;
+    for(int i = 0; i < positions.size(); i++) work.set(positions.get(i), roots.get(r++));
+    for(int i = 0; i < results.size(); i++) results.set(i, roots.get(r++));
+    for(int i = 0; i < arguments.size(); i++) arguments.set(i, roots.get(r++));
+    compaction = Math.max(MIN_COMPACTION, 2 * store.size());
+    return roots.get(r);
+  }
+
+  /**
+   * Frees the stacks.
+   */
+  public void close() throws IOException {
+    for(IntStack stack : new IntStack[] {work, results, arguments, substitutionStack, substituted, shiftStack, shifted, roots, positions}) stack.close();
+  }
+}
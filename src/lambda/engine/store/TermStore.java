@@ -0,0 +1,399 @@
+package lambda.engine.store;
+
+import lambda.Application;
+import lambda.Lambda;
+import lambda.LambdaTerm;
+import lambda.Variable;
+import lambda.engine.DeBruijnTerm;
+import lambda.engine.Names;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * De Bruijn terms kept outside the Java heap, in direct buffers or in a
+ * memory-mapped file, so terms can grow beyond the heap without creating
+ * an object per node. Nodes are immutable and referred to by number, and
+ * subterms are shared freely.
+ *
+ * A node is four ints: tag, two operands and the number of loose indices,
+ * i.e. one more than the largest index which is not bound inside the node.
+ * Nodes without loose indices are unchanged by substitution and shifting.
+ */
+public class TermStore {
+  public static final int BOUND = 0;
+  public static final int FREE = 1;
+  public static final int ABSTRACTION = 2;
+  public static final int APPLICATION = 3;
+  private static final int FORWARDED = 4;
+
+  // items of the print stack: a node under whether nothing follows it up to
+  // the enclosing parenthesis, text, or the end of the scope of a binder
+  private static final int NOT_TAIL = 0;
+  private static final int TAIL = 1;
+  private static final int CLOSE = 2;
+  private static final int SPACE = 3;
+  private static final int SPACE_OPEN = 4;
+  private static final int END_SCOPE = 5;
+  private static final String[] TEXTS = {")", " ", " ("};
+
+  private static final int NODE_INTS = 4;
+  private static final int CHUNK_BITS = 16;
+  private static final int CHUNK_NODES = 1 << CHUNK_BITS;
+  private static final int CHUNK_BYTES = CHUNK_NODES * NODE_INTS * 4;
+
+  private File directory;
+  private Space space;
+  private ArrayList<String> symbols = new ArrayList<String>();
+  private HashMap<String, Integer> symbolNumbers = new HashMap<String, Integer>();
+
+  /**
+   * Keeps the nodes in direct buffers.
+   */
+  public TermStore() throws IOException {
+    this(null);
+  }
+
+  /**
+   * @param directory directory for the file the nodes are mapped from, or
+   *                  null for direct buffers
+   */
+  public TermStore(File directory) throws IOException {
+    this.directory = directory;
+    this.space = new Space(directory);
+  }
+
+  /**
+   * Nodes of one generation, in chunks of CHUNK_NODES.
+   */
+  private static final class Space {
+    File file;
+    RandomAccessFile mapped;
+    ArrayList<IntBuffer> chunks = new ArrayList<IntBuffer>();
+    int size = 0;
+
+    Space(File directory) throws IOException {
+      if(directory != null) {
+        file = File.createTempFile("terms", ".store", directory);
+        file.deleteOnExit();
+        mapped = new RandomAccessFile(file, "rw");
+      }
+    }
+
+    int allocate(int tag, int a, int b, int loose) throws IOException {
+      if(size == Integer.MAX_VALUE) throw new IOException("Term store is full");
+      if((size >>> CHUNK_BITS) == chunks.size()) {
+        ByteBuffer chunk = mapped != null
+                ? mapped.getChannel().map(FileChannel.MapMode.READ_WRITE, (long) chunks.size() * CHUNK_BYTES, CHUNK_BYTES)
+                : ByteBuffer.allocateDirect(CHUNK_BYTES);
+        chunks.add(chunk.asIntBuffer());
+      }
+      int node = size++;
+      IntBuffer chunk = chunks.get(node >>> CHUNK_BITS);
+      int offset = (node & (CHUNK_NODES - 1)) * NODE_INTS;
+      chunk.put(offset, tag);
+      chunk.put(offset + 1, a);
+      chunk.put(offset + 2, b);
+      chunk.put(offset + 3, loose);
+      return node;
+    }
+
+    int get(int node, int field) {
+      return chunks.get(node >>> CHUNK_BITS).get((node & (CHUNK_NODES - 1)) * NODE_INTS + field);
+    }
+
+    void set(int node, int field, int value) {
+      chunks.get(node >>> CHUNK_BITS).put((node & (CHUNK_NODES - 1)) * NODE_INTS + field, value);
+    }
+
+    void close() throws IOException {
+      chunks.clear();
+      if(mapped != null) {
+        mapped.close();
+        file.delete();
+      }
+    }
+  }
+
+  /**
+   * @return directory of the mapped files, or null for direct buffers
+   */
+  public File getDirectory() {
+    return directory;
+  }
+
+  public int bound(int index) throws IOException {
+    return space.allocate(BOUND, index, 0, index + 1);
+  }
+
+  public int free(String name) throws IOException {
+    return space.allocate(FREE, symbol(name), 0, 0);
+  }
+
+  public int abstraction(int symbol, int body) throws IOException {
+    return space.allocate(ABSTRACTION, symbol, body, Math.max(0, getLoose(body) - 1));
+  }
+
+  public int application(int left, int right) throws IOException {
+    return space.allocate(APPLICATION, left, right, Math.max(getLoose(left), getLoose(right)));
+  }
+
+  public int getTag(int node) {
+    return space.get(node, 0);
+  }
+
+  public int getIndex(int node) {
+    return space.get(node, 1);
+  }
+
+  /**
+   * @return symbol of the name of a free variable or binder
+   */
+  public int getSymbol(int node) {
+    return space.get(node, 1);
+  }
+
+  public int getBody(int node) {
+    return space.get(node, 2);
+  }
+
+  public int getLeft(int node) {
+    return space.get(node, 1);
+  }
+
+  public int getRight(int node) {
+    return space.get(node, 2);
+  }
+
+  public int getLoose(int node) {
+    return space.get(node, 3);
+  }
+
+  public int symbol(String name) {
+    Integer symbol = symbolNumbers.get(name);
+    if(symbol == null) {
+      symbol = symbols.size();
+      symbols.add(name);
+      symbolNumbers.put(name, symbol);
+    }
+    return symbol;
+  }
+
+  public String getName(int symbol) {
+    return symbols.get(symbol);
+  }
+
+  /**
+   * @return number of nodes, including garbage
+   */
+  public int size() {
+    return space.size;
+  }
+
+  /**
+   * Copies the nodes reachable from the roots into a new space and frees
+   * the old one (Cheney's algorithm). Sharing is kept.
+   *
+   * @param roots nodes in use, replaced by their new numbers
+   */
+  void compact(IntStack roots) throws IOException {
+    Space from = space;
+    Space to = new Space(directory);
+    for(int i = 0; i < roots.size(); i++) roots.set(i, forward(from, to, roots.get(i)));
+
+    for(int scan = 0; scan < to.size; scan++) {
+      int tag = to.get(scan, 0);
+      if(tag == ABSTRACTION) {
+        to.set(scan, 2, forward(from, to, to.get(scan, 2)));
+      } else if(tag == APPLICATION) {
+        to.set(scan, 1, forward(from, to, to.get(scan, 1)));
+        to.set(scan, 2, forward(from, to, to.get(scan, 2)));
+      }
+    }
+
+    space = to;
+    from.close();
+  }
+
+  private static int forward(Space from, Space to, int node) throws IOException {
+    if(from.get(node, 0) == FORWARDED) return from.get(node, 1);
+
+    int copy = to.allocate(from.get(node, 0), from.get(node, 1), from.get(node, 2), from.get(node, 3));
+    from.set(node, 0, FORWARDED);
+    from.set(node, 1, copy);
+    return copy;
+  }
+
+  public void close() throws IOException {
+    space.close();
+  }
+
+  /**
+   * Stores a named term.
+   */
+  public int load(LambdaTerm term) throws IOException {
+    ArrayList<Object> work = new ArrayList<Object>();
+    ArrayList<Integer> results = new ArrayList<Integer>();
+
+    work.add(DeBruijnTerm.fromTerm(term));
+    while(!work.isEmpty()) {
+      Object item = work.remove(work.size() - 1);
+      if(item instanceof String) {
+        int body = results.remove(results.size() - 1);
+        results.add(abstraction(symbol((String) item), body));
+        continue;
+      }
+      if(item == null) {
+        int right = results.remove(results.size() - 1);
+        results.add(application(results.remove(results.size() - 1), right));
+        continue;
+      }
+
+      DeBruijnTerm node = (DeBruijnTerm) item;
+      switch(node.getTag()) {
+        case DeBruijnTerm.BOUND:
+          results.add(bound(node.getIndex()));
+          break;
+        case DeBruijnTerm.FREE:
+          results.add(free(node.getName()));
+          break;
+        case DeBruijnTerm.ABSTRACTION:
+          work.add(node.getName());
+          work.add(node.getBody());
+          break;
+        case DeBruijnTerm.APPLICATION:
+          work.add(null);
+          work.add(node.getRight());
+          work.add(node.getLeft());
+          break;
+      }
+    }
+    return results.get(0);
+  }
+
+  /**
+   * Reads a term back onto the heap.
+   *
+   * @param names supply of binder names which do not capture free variables
+   */
+  public LambdaTerm toTerm(int root, Names names) {
+    ArrayList<String> scope = new ArrayList<String>();
+    ArrayList<Object> work = new ArrayList<Object>();
+    ArrayList<LambdaTerm> results = new ArrayList<LambdaTerm>();
+
+    work.add(root);
+    while(!work.isEmpty()) {
+      Object item = work.remove(work.size() - 1);
+      if(item instanceof String) {
+        scope.remove(scope.size() - 1);
+        names.release((String) item);
+        results.add(new Lambda((String) item, results.remove(results.size() - 1)));
+        continue;
+      }
+      if(item == null) {
+        LambdaTerm right = results.remove(results.size() - 1);
+        results.add(new Application(results.remove(results.size() - 1), right));
+        continue;
+      }
+
+      int node = (Integer) item;
+      switch(getTag(node)) {
+        case BOUND:
+          results.add(new Variable(scope.get(scope.size() - 1 - getIndex(node))));
+          break;
+        case FREE:
+          results.add(new Variable(getName(getSymbol(node))));
+          break;
+        case ABSTRACTION:
+          String name = names.fresh(getName(getSymbol(node)));
+          scope.add(name);
+          work.add(name);
+          work.add(getBody(node));
+          break;
+        case APPLICATION:
+          work.add(null);
+          work.add(getRight(node));
+          work.add(getLeft(node));
+          break;
+      }
+    }
+    return results.get(0);
+  }
+
+  /**
+   * Prints a term without reading it back, with the parentheses of
+   * TermPrinter, cut off after maxChars characters.
+   */
+  public void print(int root, Names names, Appendable out, int maxChars) throws IOException {
+    ArrayList<String> scope = new ArrayList<String>();
+    IntStack work = new IntStack(directory);
+    try {
+      print(root, names, out, maxChars, scope, work);
+    } finally {
+      work.close();
+    }
+  }
+
+  private void print(int root, Names names, Appendable out, int maxChars, ArrayList<String> scope, IntStack work) throws IOException {
+    int chars = 0;
+
+    work.push(root);
+    work.push(TAIL);
+    while(!work.isEmpty()) {
+      String text;
+      int item = work.pop();
+      if(item == END_SCOPE) {
+        names.release(scope.remove(scope.size() - 1));
+        continue;
+      } else if(item >= CLOSE) {
+        text = TEXTS[item - CLOSE];
+      } else {
+        boolean tail = item == TAIL;
+        int node = work.pop();
+        switch(getTag(node)) {
+          case BOUND:
+            text = scope.get(scope.size() - 1 - getIndex(node));
+            break;
+          case FREE:
+            text = getName(getSymbol(node));
+            break;
+          case ABSTRACTION:
+            String name = names.fresh(getName(getSymbol(node)));
+            scope.add(name);
+            work.push(END_SCOPE);
+            work.push(getBody(node));
+            work.push(TAIL);
+            text = "\u03BB" + name + ".";
+            break;
+          default:
+            int left = getLeft(node);
+            int right = getRight(node);
+            boolean leftParentheses = getTag(left) == ABSTRACTION;
+            boolean rightParentheses = getTag(right) == APPLICATION || getTag(right) == ABSTRACTION && !tail;
+            if(rightParentheses) work.push(CLOSE);
+            work.push(right);
+            work.push(tail || rightParentheses ? TAIL : NOT_TAIL);
+            work.push(rightParentheses ? SPACE_OPEN : SPACE);
+            if(leftParentheses) work.push(CLOSE);
+            work.push(left);
+            work.push(leftParentheses ? TAIL : NOT_TAIL);
+            text = leftParentheses ? "(" : "";
+            break;
+        }
+      }
+
+      if(text.length() > maxChars - chars) {
+        out.append(text, 0, maxChars - chars).append("...");
+        return;
+      }
+      out.append(text);
+      chars += text.length();
+    }
+  }
+}
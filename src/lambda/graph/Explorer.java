@@ -0,0 +1,160 @@
+package lambda.graph;
+
+import lambda.LambdaTerm;
+import lambda.actions.Redexes;
+import lambda.actions.Rewrite;
+import lambda.graph.ReductionGraph.Edge;
+import lambda.graph.ReductionGraph.Node;
+import lambda.parser.LambdaTermParser;
+import lambda.utils.Position;
+import lambda.utils.TermPrinter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Explores the reduction graph of a term breadth-first, contracting every
+ * redex of every term. The terms of one level are expanded in parallel
+ * and deduplicated up to alpha equivalence.
+ *
+ * Usage: Explorer term [maxNodes [maxDepth]] prints the graph in DOT.
+ */
+public class Explorer {
+  private static final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new Thread(runnable, "explorer");
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  private int maxNodes;
+  private int maxDepth;
+
+  /**
+   * @param maxNodes maximal number of terms in the graph
+   * @param maxDepth maximal length of the explored reductions
+   */
+  public Explorer(int maxNodes, int maxDepth) {
+    this.maxNodes = maxNodes;
+    this.maxDepth = maxDepth;
+  }
+
+  public ReductionGraph explore(LambdaTerm term) {
+    final ConcurrentHashMap<LambdaTerm, Node> states = new ConcurrentHashMap<LambdaTerm, Node>();
+    final ConcurrentLinkedQueue<Edge> edges = new ConcurrentLinkedQueue<Edge>();
+    final AtomicInteger size = new AtomicInteger(1);
+    final AtomicBoolean complete = new AtomicBoolean(true);
+
+    Node start = new Node(term.copy(), 0, null);
+    states.put(start.getTerm(), start);
+
+    ArrayList<Node> nodes = new ArrayList<Node>();
+    List<Node> frontier = new ArrayList<Node>();
+    frontier.add(start);
+    for(int depth = 0; !frontier.isEmpty(); depth++) {
+      nodes.addAll(frontier);
+      if(depth == maxDepth) {
+        for(Node node : frontier) {
+          if(!node.isNormalForm()) complete.set(false);
+        }
+        break;
+      }
+
+      ArrayList<Callable<List<Node>>> tasks = new ArrayList<Callable<List<Node>>>();
+      for(final Node node : frontier) {
+        tasks.add(new Callable<List<Node>>() {
+          public List<Node> call() {
+            return expand(node, states, edges, size, complete);
+          }
+        });
+      }
+
+      List<Node> next = new ArrayList<Node>();
+      try {
+        for(Future<List<Node>> future : executor.invokeAll(tasks)) next.addAll(future.get());
+      } catch(InterruptedException e) {
+        Thread.currentThread().interrupt();
+        complete.set(false);
+        break;
+      } catch(ExecutionException e) {
+        throw new RuntimeException(e.getCause());
+      }
+      frontier = next;
+    }
+
+    for(int i = 0; i < nodes.size(); i++) nodes.get(i).setId(i);
+
+    // edges into a level which was not completed are dropped
+    ArrayList<Edge> edgeList = new ArrayList<Edge>();
+    for(Edge edge : edges) {
+      if(edge.getTarget().getId() >= 0) edgeList.add(edge);
+    }
+    Collections.sort(edgeList, new Comparator<Edge>() {
+      public int compare(Edge edge, Edge other) {
+        return edge.getSource().getId() - other.getSource().getId();
+      }
+    });
+    return new ReductionGraph(nodes, edgeList, complete.get());
+  }
+
+  /**
+   * Contracts every redex of a term.
+   *
+   * @return the terms which were not in the graph yet
+   */
+  private List<Node> expand(Node node, ConcurrentHashMap<LambdaTerm, Node> states, ConcurrentLinkedQueue<Edge> edges, AtomicInteger size, AtomicBoolean complete) {
+    ArrayList<Node> added = new ArrayList<Node>();
+    for(Position redex : node.getTerm().visit(new Redexes(), null)) {
+      LambdaTerm reduct = node.getTerm().copy().visit(new Rewrite(), redex);
+
+      Node target = states.get(reduct);
+      if(target == null) {
+        if(size.incrementAndGet() > maxNodes) {
+          size.decrementAndGet();
+          complete.set(false);
+          continue;
+        }
+        Node candidate = new Node(reduct, node.getDepth() + 1, node);
+        target = states.putIfAbsent(reduct, candidate);
+        if(target == null) {
+          target = candidate;
+          added.add(candidate);
+        } else {
+          size.decrementAndGet();
+        }
+      }
+      edges.add(new Edge(node, target, redex));
+    }
+    return added;
+  }
+
+  public static void main(String[] args) {
+    if(args.length == 0) {
+      System.err.println("Usage: Explorer term [maxNodes [maxDepth]]");
+      return;
+    }
+    int maxNodes = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+    int maxDepth = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+
+    LambdaTerm term = LambdaTermParser.parse("Init = " + args[0] + ";").get("Init");
+    ReductionGraph graph = new Explorer(maxNodes, maxDepth).explore(term);
+
+    System.out.print(graph.toDot());
+    List<Node> path = graph.getShortestPath();
+    System.out.println("// " + graph.getNodes().size() + " terms, " + graph.getEdges().size() + " steps" + (graph.isComplete() ? "" : ", incomplete"));
+    if(path != null) System.out.println("// normal form in " + (path.size() - 1) + " steps: " + new TermPrinter().toString(path.get(path.size() - 1).getTerm()));
+  }
+}
@@ -0,0 +1,161 @@
+package lambda.graph;
+
+import lambda.LambdaTerm;
+import lambda.utils.Position;
+import lambda.utils.TermPrinter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Terms reachable from a start term, connected by single beta steps.
+ * Alpha-equivalent terms are one node.
+ */
+public class ReductionGraph {
+  private List<Node> nodes;
+  private List<Edge> edges;
+  private boolean complete;
+
+  ReductionGraph(List<Node> nodes, List<Edge> edges, boolean complete) {
+    this.nodes = nodes;
+    this.edges = edges;
+    this.complete = complete;
+  }
+
+  public Node getStart() {
+    return nodes.get(0);
+  }
+
+  /**
+   * @return the nodes, ordered by id
+   */
+  public List<Node> getNodes() {
+    return nodes;
+  }
+
+  public List<Edge> getEdges() {
+    return edges;
+  }
+
+  /**
+   * @return false if the node or depth limit cut off part of the graph
+   */
+  public boolean isComplete() {
+    return complete;
+  }
+
+  /**
+   * @return a shortest reduction from the start term to a normal form, or
+   *         null if the explored part of the graph contains none
+   */
+  public List<Node> getShortestPath() {
+    Node normalForm = null;
+    for(Node node : nodes) {
+      if(node.isNormalForm() && (normalForm == null || node.getDepth() < normalForm.getDepth())) normalForm = node;
+    }
+    if(normalForm == null) return null;
+
+    ArrayList<Node> path = new ArrayList<Node>();
+    for(Node node = normalForm; node != null; node = node.getParent()) path.add(node);
+    Collections.reverse(path);
+    return path;
+  }
+
+  /**
+   * Graphviz representation; normal forms are drawn as double circles.
+   */
+  public String toDot() {
+    TermPrinter printer = new TermPrinter(null, true, 60, TermPrinter.UNLIMITED);
+    StringBuilder dot = new StringBuilder("digraph reductions {\n");
+    for(Node node : nodes) {
+      dot.append("  n").append(node.getId()).append(" [label=\"").append(escape(printer.toString(node.getTerm()))).append('"');
+      if(node.isNormalForm()) dot.append(", shape=doublecircle");
+      dot.append("];\n");
+    }
+    for(Edge edge : edges) {
+      dot.append("  n").append(edge.getSource().getId()).append(" -> n").append(edge.getTarget().getId());
+      dot.append(" [label=\"").append(escape(edge.getPosition().toString())).append("\"];\n");
+    }
+    return dot.append("}\n").toString();
+  }
+
+  private static String escape(String string) {
+    return string.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+
+  /**
+   * Term in the graph.
+   */
+  public static class Node {
+    private int id = -1;
+    private LambdaTerm term;
+    private int depth;
+    private Node parent;
+    private boolean normalForm;
+
+    Node(LambdaTerm term, int depth, Node parent) {
+      this.term = term;
+      this.depth = depth;
+      this.parent = parent;
+      this.normalForm = !term.hasRedexDeep();
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    void setId(int id) {
+      this.id = id;
+    }
+
+    public LambdaTerm getTerm() {
+      return term;
+    }
+
+    /**
+     * @return length of a shortest reduction from the start term
+     */
+    public int getDepth() {
+      return depth;
+    }
+
+    /**
+     * @return predecessor on a shortest reduction from the start term
+     */
+    public Node getParent() {
+      return parent;
+    }
+
+    public boolean isNormalForm() {
+      return normalForm;
+    }
+  }
+
+  /**
+   * Beta step contracting the redex at a position.
+   */
+  public static class Edge {
+    private Node source;
+    private Node target;
+    private Position position;
+
+    Edge(Node source, Node target, Position position) {
+      this.source = source;
+      this.target = target;
+      this.position = position;
+    }
+
+    public Node getSource() {
+      return source;
+    }
+
+    public Node getTarget() {
+      return target;
+    }
+
+    public Position getPosition() {
+      return position;
+    }
+  }
+}
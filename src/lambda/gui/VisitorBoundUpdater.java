@@ -1,12 +1,14 @@
 package lambda.gui;
 
 import lambda.*;
+import lambda.utils.AlphaHash;
 import lambda.utils.Bound;
 import lambda.utils.LambdaTermVisitorVoid;
 import lambda.parser.Definitions;
 import lambda.parser.Definition;
 
 import java.awt.*;
+import java.util.IdentityHashMap;
 
 /**
  * Update bounds of lambda terms.
@@ -14,6 +16,7 @@ import java.awt.*;
 public class VisitorBoundUpdater implements LambdaTermVisitorVoid {
   private FontMetrics fontMetrics;
   private Definitions definitions;
+  private IdentityHashMap<LambdaTerm, Integer> hashes;  // of the subterms of the visited term
 
   public VisitorBoundUpdater(FontMetrics fontMetrics, Definitions definitions) {
     this.fontMetrics = fontMetrics;
@@ -22,7 +25,7 @@ public class VisitorBoundUpdater implements LambdaTermVisitorVoid {
 
   private boolean checkCollapsed(LambdaTerm term) {
     if(!term.isExpanded()) {
-      Definition definition = term.isDefined(definitions);
+      Definition definition = defined(term);
       String name = definition != null ? definition.getName() : "...";
       setBound(term.getBound(), name);
       return true;
@@ -30,6 +33,19 @@ public class VisitorBoundUpdater implements LambdaTermVisitorVoid {
     return false;
   }
 
+  /**
+   * @return the definition of a subterm, by the hashes of all subterms of
+   *         the term visited first, which are computed once
+   */
+  private Definition defined(LambdaTerm term) {
+    Integer hash = hashes != null ? hashes.get(term) : null;
+    if(hash == null) {
+      hashes = AlphaHash.all(term);
+      hash = hashes.get(term);
+    }
+    return definitions.lookup(term, hash);
+  }
+
   public void visit(LambdaTerm term) {
     throw new RuntimeException("Unkown LambdaTerm.");
   }
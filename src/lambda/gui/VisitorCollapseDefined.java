@@ -1,33 +1,51 @@
 package lambda.gui;
 
+import lambda.utils.AlphaHash;
 import lambda.utils.LambdaTermVisitorVoid;
 import lambda.Lambda;
 import lambda.Application;
 import lambda.Variable;
 import lambda.LambdaTerm;
+import lambda.parser.Definition;
 import lambda.parser.Definitions;
 
+import java.util.IdentityHashMap;
+
 /**
  * Collapse defined subterms.
  */
 public class VisitorCollapseDefined implements LambdaTermVisitorVoid {
   private Definitions definitions;
+  private IdentityHashMap<LambdaTerm, Integer> hashes;  // of the subterms of the visited term
 
   public VisitorCollapseDefined(Definitions definitions) {
     this.definitions = definitions;
   }
 
+  /**
+   * @return the definition of a subterm, by the hashes of all subterms of
+   *         the term visited first, which are computed once
+   */
+  private Definition defined(LambdaTerm term) {
+    Integer hash = hashes != null ? hashes.get(term) : null;
+    if(hash == null) {
+      hashes = AlphaHash.all(term);
+      hash = hashes.get(term);
+    }
+    return definitions.lookup(term, hash);
+  }
+
   public void visit(LambdaTerm term) {
     throw new RuntimeException("Unkown LambdaTerm.");
   }
 
   public void visit(Lambda lambda) {
-    if(lambda.isDefined(definitions) != null) lambda.setExpanded(false);
+    if(defined(lambda) != null) lambda.setExpanded(false);
     lambda.getTerm().visit(this);
   }
 
   public void visit(Application application) {
-    if(application.isDefined(definitions) != null) application.setExpanded(false);
+    if(defined(application) != null) application.setExpanded(false);
     application.getLeft().visit(this);
     application.getRight().visit(this);
   }
@@ -1,12 +1,14 @@
 package lambda.gui;
 
 import lambda.*;
+import lambda.utils.AlphaHash;
 import lambda.utils.Bound;
 import lambda.utils.Position;
 import lambda.parser.Definitions;
 import lambda.parser.Definition;
 
 import java.awt.*;
+import java.util.IdentityHashMap;
 
 /**
  * Rendering lambda terms.
@@ -15,6 +17,7 @@ public class VisitorTermRenderer {
   private Component component;
   private Graphics2D g;
   private Definitions definitions;
+  private IdentityHashMap<LambdaTerm, Integer> hashes;  // of the subterms of the rendered term
 
   public VisitorTermRenderer(Component component, Graphics2D g, Definitions definitions) {
     this.component = component;
@@ -35,7 +38,7 @@ public class VisitorTermRenderer {
   }
 
   private boolean renderCollapsed(LambdaTerm term, int x, int y, Color color, Color colorCollapsedRedex, boolean drawFrame) {
-    Definition definition = term.isDefined(definitions);
+    Definition definition = defined(term);
     if(definition == null && term.isExpanded()) return false;
 
     String name = definition != null ? definition.getName() : "...";
@@ -53,6 +56,19 @@ public class VisitorTermRenderer {
     return !term.isExpanded();
   }
 
+  /**
+   * @return the definition of a subterm, by the hashes of all subterms of
+   *         the term rendered first, which are computed once
+   */
+  private Definition defined(LambdaTerm term) {
+    Integer hash = hashes != null ? hashes.get(term) : null;
+    if(hash == null) {
+      hashes = AlphaHash.all(term);
+      hash = hashes.get(term);
+    }
+    return definitions.lookup(term, hash);
+  }
+
   public void renderLambda(Lambda lambda, int x, int y) {
     Bound innerBound = lambda.getInnerBound();
     drawName(lambda.getName(), x + innerBound.x + 2, y + innerBound.height - 4);
@@ -143,11 +159,14 @@ public class VisitorTermRenderer {
     int ry = y + VisitorBoundUpdater.getRightY(application);
 
     Position positionLeft = getMouseOverPosition(application.getLeft(), mx, my, lx, ly);
-    if(positionLeft != null) positionLeft.add(0);
+    if(positionLeft != null) {
+      positionLeft.add(0);
+      return positionLeft;
+    }
     Position positionRight = getMouseOverPosition(application.getRight(), mx, my, rx, ry);
     if(positionRight != null) positionRight.add(1);
 
-    return positionLeft != null ? positionLeft : positionRight;
+    return positionRight;
   }
 
   public Position getMouseOverPositionVariable(Variable variable, int mx, int my, int x, int y) {
@@ -155,29 +174,35 @@ public class VisitorTermRenderer {
   }
 
   /**
-   * Highlighting.
+   * Highlighting. The position is only read.
    */
   public void highlight(LambdaTerm term, Position position, int x, int y, boolean onOff) {
+    highlight(term, position, 0, x, y, onOff);
+  }
+
+  /**
+   * @param depth steps of the position taken so far
+   */
+  public void highlight(LambdaTerm term, Position position, int depth, int x, int y, boolean onOff) {
     if(!term.isExpanded()) {
-      if(position.length() != 0) return;
+      if(depth != position.length()) return;
       Bound bound = term.getBound();
       drawHighlight(x + bound.x, y + bound.y, bound.width, bound.height, onOff);
       renderCollapsed(term, x, y, Color.BLACK, Color.RED, !onOff);
       return;
     }
 
-    if(term instanceof Lambda) highlight((Lambda) term, position, x, y, onOff);
-    else if(term instanceof Application) highlight((Application) term, position, x, y, onOff);
-    else if(term instanceof Variable) highlight((Variable) term, position, x, y, onOff);
+    if(term instanceof Lambda) highlight((Lambda) term, position, depth, x, y, onOff);
+    else if(term instanceof Application) highlight((Application) term, position, depth, x, y, onOff);
+    else if(term instanceof Variable) highlight((Variable) term, position, depth, x, y, onOff);
   }
 
-  public void highlight(Lambda lambda, Position position, int x, int y, boolean onOff) {
-    if(position.length() > 0) {
+  public void highlight(Lambda lambda, Position position, int depth, int x, int y, boolean onOff) {
+    if(depth < position.length()) {
       int tx = x + VisitorBoundUpdater.getTermX(lambda);
       int ty = y + VisitorBoundUpdater.getTermY(lambda);
 
-      position.remove();
-      highlight(lambda.getTerm(), position, tx, ty, onOff);
+      highlight(lambda.getTerm(), position, depth + 1, tx, ty, onOff);
     } else {
       Bound bound = lambda.getInnerBound();
       drawHighlight(x + bound.x, y + bound.y, bound.width, bound.height, onOff);
@@ -186,7 +211,7 @@ public class VisitorTermRenderer {
     }
   }
 
-  public void highlight(Application application, Position position, int x, int y, boolean onOff) {
+  public void highlight(Application application, Position position, int depth, int x, int y, boolean onOff) {
     LambdaTerm left = application.getLeft();
     LambdaTerm right = application.getRight();
 
@@ -195,11 +220,11 @@ public class VisitorTermRenderer {
     int rx = x + VisitorBoundUpdater.getRightX(application);
     int ry = y + VisitorBoundUpdater.getRightY(application);
 
-    if(position.length() > 0) {
-      if(position.remove() == 0) {
-        highlight(left, position, lx, ly, onOff);
+    if(depth < position.length()) {
+      if(position.get(depth) == 0) {
+        highlight(left, position, depth + 1, lx, ly, onOff);
       } else {
-        highlight(right, position, rx, ry, onOff);
+        highlight(right, position, depth + 1, rx, ry, onOff);
       }
     } else {
       drawHighlight(x-5, y-5, 11, 11, onOff);
@@ -207,8 +232,8 @@ public class VisitorTermRenderer {
     }
   }
 
-  public void highlight(Variable variable, Position position, int x, int y, boolean onOff) {
-    if(position.length() != 0) return;
+  public void highlight(Variable variable, Position position, int depth, int x, int y, boolean onOff) {
+    if(depth != position.length()) return;
 
     Bound bound = variable.getBound();
     drawHighlight(x + bound.x, y + bound.y, bound.width, bound.height, onOff);
@@ -0,0 +1,160 @@
+package lambda.io;
+
+import lambda.Application;
+import lambda.Lambda;
+import lambda.LambdaTerm;
+import lambda.Variable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import static lambda.io.TermEncoder.*;
+
+/**
+ * Reads terms written by TermEncoder, from a channel or from a buffer such
+ * as a mapped file.
+ *
+ * A reference to a subterm read before is a copy of it, unless subterms
+ * are shared. Either way the decoder keeps the terms it read, so they must
+ * not be changed until it is done.
+ */
+public class TermDecoder {
+  private ReadableByteChannel channel;
+  private ByteBuffer buffer;
+  private boolean share;
+
+  private ArrayList<String> symbols = new ArrayList<String>();
+  private ArrayList<LambdaTerm> nodes = new ArrayList<LambdaTerm>();
+
+  /**
+   * @param share whether repeated subterms are the same object, which is
+   *              smaller but only fit for terms which are not rewritten
+   */
+  public TermDecoder(ReadableByteChannel channel, boolean share) throws IOException {
+    this.channel = channel;
+    this.buffer = ByteBuffer.allocate(1 << 16);
+    this.buffer.flip();
+    this.share = share;
+    readMagic();
+  }
+
+  public TermDecoder(ByteBuffer buffer, boolean share) throws IOException {
+    this.buffer = buffer;
+    this.share = share;
+    readMagic();
+  }
+
+  private void readMagic() throws IOException {
+    if(!fill(4) || buffer.getInt() != MAGIC) throw new IOException("Not a term stream");
+  }
+
+  /**
+   * @return the next term or null at the end of the stream
+   */
+  public LambdaTerm read() throws IOException {
+    ArrayList<LambdaTerm> stack = new ArrayList<LambdaTerm>();
+    while(true) {
+      if(stack.isEmpty() && !fill(1)) return null;
+      long tag = readVarint();
+      int operand = (int) (tag >>> KIND_BITS);
+
+      switch((int) (tag & ((1 << KIND_BITS) - 1))) {
+        case VARIABLE:
+          stack.add(new Variable(symbols.get(operand)));
+          break;
+        case LAMBDA:
+          stack.add(new Lambda(symbols.get(operand), stack.remove(stack.size() - 1)));
+          nodes.add(stack.get(stack.size() - 1));
+          break;
+        case APPLICATION:
+          LambdaTerm right = stack.remove(stack.size() - 1);
+          stack.add(new Application(stack.remove(stack.size() - 1), right));
+          nodes.add(stack.get(stack.size() - 1));
+          break;
+        case REFERENCE:
+          stack.add(share ? nodes.get(operand) : copy(nodes.get(operand)));
+          break;
+        case SYMBOL:
+          long length = readVarint();
+          if(length > Integer.MAX_VALUE || channel == null && length > buffer.remaining()) throw new IOException("Unexpected end of term stream");
+          byte[] bytes = new byte[(int) length];
+          for(int i = 0; i < bytes.length; i++) {
+            if(!fill(1)) throw new IOException("Unexpected end of term stream");
+            bytes[i] = buffer.get();
+          }
+          symbols.add(new String(bytes, StandardCharsets.UTF_8));
+          break;
+        case END:
+          if(stack.size() != 1) throw new IOException("Malformed term in stream");
+          return stack.get(0);
+        default:
+          throw new IOException("Unknown tag in term stream");
+      }
+    }
+  }
+
+  /**
+   * Copies a term without recursion.
+   */
+  private static LambdaTerm copy(LambdaTerm term) {
+    ArrayList<LambdaTerm> stack = new ArrayList<LambdaTerm>();
+    ArrayList<LambdaTerm> copies = new ArrayList<LambdaTerm>();
+    ArrayList<Boolean> expanded = new ArrayList<Boolean>();
+    stack.add(term);
+    expanded.add(false);
+    while(!stack.isEmpty()) {
+      LambdaTerm node = stack.remove(stack.size() - 1);
+      boolean children = expanded.remove(expanded.size() - 1);
+
+      if(node instanceof Variable) {
+        copies.add(new Variable(((Variable) node).getName()));
+      } else if(children && node instanceof Lambda) {
+        copies.add(new Lambda(((Lambda) node).getName(), copies.remove(copies.size() - 1)));
+      } else if(children) {
+        LambdaTerm right = copies.remove(copies.size() - 1);
+        copies.add(new Application(copies.remove(copies.size() - 1), right));
+      } else {
+        stack.add(node);
+        expanded.add(true);
+        if(node instanceof Lambda) {
+          stack.add(((Lambda) node).getTerm());
+          expanded.add(false);
+        } else {
+          stack.add(((Application) node).getRight());
+          expanded.add(false);
+          stack.add(((Application) node).getLeft());
+          expanded.add(false);
+        }
+      }
+    }
+    return copies.get(0);
+  }
+
+  private long readVarint() throws IOException {
+    long value = 0;
+    for(int shift = 0; ; shift += 7) {
+      if(!fill(1)) throw new IOException("Unexpected end of term stream");
+      byte b = buffer.get();
+      value |= (long) (b & 0x7f) << shift;
+      if(b >= 0) return value;
+    }
+  }
+
+  /**
+   * @return whether at least the given number of bytes can be read
+   */
+  private boolean fill(int bytes) throws IOException {
+    if(buffer.remaining() >= bytes) return true;
+    if(channel == null) return false;
+
+    buffer.compact();
+    while(buffer.position() < bytes) {
+      if(channel.read(buffer) < 0) break;
+    }
+    buffer.flip();
+    return buffer.remaining() >= bytes;
+  }
+}
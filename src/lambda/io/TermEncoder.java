@@ -0,0 +1,200 @@
+package lambda.io;
+
+import lambda.Application;
+import lambda.Lambda;
+import lambda.LambdaTerm;
+import lambda.Variable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Writes terms to a channel in a compact binary format, read by
+ * TermDecoder. Nodes are written in postorder as varints whose low bits
+ * are the kind of node and whose high bits are its operand. A name is
+ * written once and then referred to by its number. Every abstraction and
+ * application is numbered too, and a subterm which was written before, in
+ * the same term or an earlier one, is written as a reference to it.
+ */
+public class TermEncoder {
+  static final int MAGIC = 0x4c435431;
+
+  static final int VARIABLE = 0;
+  static final int LAMBDA = 1;
+  static final int APPLICATION = 2;
+  static final int REFERENCE = 3;
+  static final int SYMBOL = 4;
+  static final int END = 5;
+  static final int KIND_BITS = 3;
+
+  private WritableByteChannel channel;
+  private ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+
+  // subterms by structure: variables are -1 - number of their name
+  private HashMap<String, Integer> names = new HashMap<String, Integer>();
+  private HashMap<Long, Integer> lambdas = new HashMap<Long, Integer>();
+  private HashMap<Long, Integer> applications = new HashMap<Long, Integer>();
+
+  // what the decoder knows: symbols and nodes by structure
+  private ArrayList<Integer> symbols = new ArrayList<Integer>();
+  private ArrayList<Integer> nodes = new ArrayList<Integer>();
+  private int symbolCount = 0;
+  private int written = 0;
+
+  public TermEncoder(WritableByteChannel channel) throws IOException {
+    this.channel = channel;
+    buffer.putInt(MAGIC);
+  }
+
+  public void write(LambdaTerm term) throws IOException {
+    IdentityHashMap<LambdaTerm, Integer> structures = number(term);
+
+    // postorder; a subterm is expanded at most once, later it is a reference
+    ArrayList<LambdaTerm> stack = new ArrayList<LambdaTerm>();
+    ArrayList<Boolean> expanded = new ArrayList<Boolean>();
+    stack.add(term);
+    expanded.add(false);
+    while(!stack.isEmpty()) {
+      LambdaTerm node = stack.remove(stack.size() - 1);
+      boolean children = expanded.remove(expanded.size() - 1);
+      int structure = structures.get(node);
+
+      if(node instanceof Variable) {
+        writeVarint(((long) symbol(((Variable) node).getName(), -1 - structure) << KIND_BITS) | VARIABLE);
+        continue;
+      }
+
+      Integer reference = structure < nodes.size() ? nodes.get(structure) : null;
+      if(reference != null && reference >= 0) {
+        writeVarint(((long) reference << KIND_BITS) | REFERENCE);
+      } else if(children) {
+        if(node instanceof Lambda) {
+          int name = names.get(((Lambda) node).getName());
+          writeVarint(((long) symbol(((Lambda) node).getName(), name) << KIND_BITS) | LAMBDA);
+        } else {
+          writeVarint(APPLICATION);
+        }
+        while(nodes.size() <= structure) nodes.add(-1);
+        nodes.set(structure, written++);
+      } else {
+        stack.add(node);
+        expanded.add(true);
+        if(node instanceof Lambda) {
+          stack.add(((Lambda) node).getTerm());
+          expanded.add(false);
+        } else {
+          stack.add(((Application) node).getRight());
+          expanded.add(false);
+          stack.add(((Application) node).getLeft());
+          expanded.add(false);
+        }
+      }
+    }
+    writeVarint(END);
+  }
+
+  /**
+   * Numbers the subterms by structure, children first, so equal subterms
+   * get equal numbers. Nodes which are shared in memory are visited once.
+   */
+  private IdentityHashMap<LambdaTerm, Integer> number(LambdaTerm term) {
+    IdentityHashMap<LambdaTerm, Integer> structures = new IdentityHashMap<LambdaTerm, Integer>();
+    ArrayList<LambdaTerm> stack = new ArrayList<LambdaTerm>();
+    stack.add(term);
+    while(!stack.isEmpty()) {
+      LambdaTerm node = stack.get(stack.size() - 1);
+      if(structures.containsKey(node)) {
+        stack.remove(stack.size() - 1);
+        continue;
+      }
+
+      int structure;
+      if(node instanceof Variable) {
+        structure = -1 - name(((Variable) node).getName());
+      } else if(node instanceof Lambda) {
+        Integer body = structures.get(((Lambda) node).getTerm());
+        if(body == null) {
+          stack.add(((Lambda) node).getTerm());
+          continue;
+        }
+        structure = structure(lambdas, name(((Lambda) node).getName()), body);
+      } else {
+        Integer left = structures.get(((Application) node).getLeft());
+        Integer right = structures.get(((Application) node).getRight());
+        if(left == null || right == null) {
+          if(right == null) stack.add(((Application) node).getRight());
+          if(left == null) stack.add(((Application) node).getLeft());
+          continue;
+        }
+        structure = structure(applications, left, right);
+      }
+      structures.put(node, structure);
+      stack.remove(stack.size() - 1);
+    }
+    return structures;
+  }
+
+  private int name(String name) {
+    Integer number = names.get(name);
+    if(number == null) {
+      number = names.size();
+      names.put(name, number);
+    }
+    return number;
+  }
+
+  private int structure(HashMap<Long, Integer> structures, int first, int second) {
+    Long key = ((long) first << 32) | (second & 0xffffffffL);
+    Integer structure = structures.get(key);
+    if(structure == null) {
+      structure = lambdas.size() + applications.size();
+      structures.put(key, structure);
+    }
+    return structure;
+  }
+
+  /**
+   * @return number of the symbol of a name, which is written first if it is new
+   */
+  private int symbol(String name, int number) throws IOException {
+    while(symbols.size() <= number) symbols.add(-1);
+    if(symbols.get(number) < 0) {
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      writeVarint(SYMBOL);
+      writeVarint(bytes.length);
+      for(byte b : bytes) {
+        if(!buffer.hasRemaining()) drain();
+        buffer.put(b);
+      }
+      symbols.set(number, symbolCount++);
+    }
+    return symbols.get(number);
+  }
+
+  private void writeVarint(long value) throws IOException {
+    if(buffer.remaining() < 10) drain();
+    while((value & ~0x7fL) != 0) {
+      buffer.put((byte) ((value & 0x7f) | 0x80));
+      value >>>= 7;
+    }
+    buffer.put((byte) value);
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    while(buffer.hasRemaining()) channel.write(buffer);
+    buffer.clear();
+  }
+
+  /**
+   * Writes out what is buffered, e.g. before the channel is closed.
+   */
+  public void flush() throws IOException {
+    drain();
+  }
+}
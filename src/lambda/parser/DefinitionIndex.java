@@ -0,0 +1,71 @@
+package lambda.parser;
+
+import lambda.LambdaTerm;
+import lambda.utils.AlphaHash;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Definitions by the alpha-invariant hash of their terms, to find the
+ * definition of a term up to alpha equivalence. Init is not indexed.
+ */
+public class DefinitionIndex {
+  private HashMap<Integer, ArrayList<Definition>> buckets = new HashMap<Integer, ArrayList<Definition>>();
+  private HashMap<String, Definition> definitions = new HashMap<String, Definition>();
+  private HashMap<String, Integer> hashes = new HashMap<String, Integer>();  // hash each definition is indexed by
+
+  public void add(Definition definition) {
+    add(definition, AlphaHash.of(definition.getTerm()));
+  }
+
+  /**
+   * Adds a definition whose hash was computed before, e.g. in a snapshot.
+   * A definition of the same name is replaced.
+   */
+  public void add(Definition definition, int hash) {
+    if(definition.getName().equals("Init")) return;
+
+    remove(definition.getName());
+    definitions.put(definition.getName(), definition);
+    hashes.put(definition.getName(), hash);
+    ArrayList<Definition> bucket = buckets.get(hash);
+    if(bucket == null) {
+      bucket = new ArrayList<Definition>();
+      buckets.put(hash, bucket);
+    }
+    bucket.add(definition);
+  }
+
+  public void remove(String name) {
+    Definition definition = definitions.remove(name);
+    Integer hash = hashes.remove(name);
+    if(definition == null) return;
+
+    ArrayList<Definition> bucket = buckets.get(hash);
+    bucket.remove(definition);
+    if(bucket.isEmpty()) buckets.remove(hash);
+  }
+
+  /**
+   * @return the hash a definition is indexed by, or null if it is not
+   */
+  public Integer getHash(String name) {
+    return hashes.get(name);
+  }
+
+  /**
+   * @param hash the alpha-invariant hash of the term
+   * @return the first definition of the term up to alpha equivalence, or
+   *         null
+   */
+  public Definition lookup(LambdaTerm term, int hash) {
+    ArrayList<Definition> bucket = buckets.get(hash);
+    if(bucket == null) return null;
+
+    for(Definition definition : bucket) {
+      if(term.equals(definition.getTerm())) return definition;
+    }
+    return null;
+  }
+}
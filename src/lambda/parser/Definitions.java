@@ -1,40 +1,399 @@
 package lambda.parser;
 
 import lambda.LambdaTerm;
+import lambda.Lambda;
+import lambda.Application;
+import lambda.Variable;
+import lambda.utils.AlphaHash;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 
 /**
  * List of definitions.
  */
 public class Definitions {
   private Definition[] definitions;
+  private boolean eager;
+  private HashMap<String, Definition> named = new HashMap<String, Definition>();
   private HashMap<String, LambdaTerm> map = new HashMap<String, LambdaTerm>();
+  private HashMap<String, LambdaTerm> raw = new HashMap<String, LambdaTerm>();
+  private DependencyGraph graph;
+  private HashMap<String, LambdaTerm> unfolded;
+  private NormalForms normalForms = new NormalForms(map);
+  private DefinitionIndex index = new DefinitionIndex();
+  private int modifications = 0;  // changes of definitions other than Init
 
   public Definitions(Definition[] definitions) {
+    this(definitions, true);
+  }
+
+  /**
+   * @param definitions definitions, of which the last one of every name
+   *                    counts
+   * @param eager whether names are replaced by their definitions now, or
+   *              kept as constants which are unfolded during reduction
+   */
+  public Definitions(Definition[] definitions, boolean eager) {
+    this.definitions = definitions = distinct(definitions);
+    this.eager = eager;
+
+    for(Definition definition : definitions) {
+      named.put(definition.getName(), definition);
+      map.put(definition.getName(), definition.getTerm());
+    }
+
+    if(!eager) {
+      // binders must not shadow constants, or unfolding could capture them
+      this.definitions = definitions = definitions.clone();
+      for(int i = 0; i < definitions.length; i++) {
+        definitions[i] = unshadowed(definitions[i]);
+        named.put(definitions[i].getName(), definitions[i]);
+        map.put(definitions[i].getName(), definitions[i].getTerm());
+      }
+    }
+    raw.putAll(map);
+    graph = new DependencyGraph(raw);
+
+    if(eager) {
+      unfoldAll();
+      for(Definition definition : definitions) {
+        definition.setTerm(unfolded.get(definition.getName()));
+        map.put(definition.getName(), definition.getTerm());
+      }
+    }
+
+    for(Definition definition : definitions) index.add(definition);
+  }
+
+  /**
+   * Restores definitions which were built before, e.g. from a snapshot.
+   * Nothing is renamed or unfolded again.
+   *
+   * @param definitions definitions with their terms as in use
+   * @param raw the terms as written, before unfolding
+   * @param hashes the hashes the definitions are indexed by
+   */
+  Definitions(Definition[] definitions, HashMap<String, LambdaTerm> raw, int[] hashes, boolean eager) {
     this.definitions = definitions;
+    this.eager = eager;
 
-    // unfold definitions
     for(Definition definition : definitions) {
-      while(true) {
-        LambdaTerm last = definition.getTerm().copy();
-        for(Definition unfold : definitions) {
-          definition.setTerm(definition.getTerm().replace(unfold.getName(), unfold.getTerm()));
+      named.put(definition.getName(), definition);
+      map.put(definition.getName(), definition.getTerm());
+    }
+    this.raw.putAll(raw);
+    graph = new DependencyGraph(raw);
+    if(eager) unfolded = new HashMap<String, LambdaTerm>(map);
+
+    for(int i = 0; i < definitions.length; i++) index.add(definitions[i], hashes[i]);
+  }
+
+  public DependencyGraph getDependencyGraph() {
+    return graph;
+  }
+
+  /**
+   * Adds or replaces a definition. Only the definitions which depend on
+   * it are invalidated and, if eager, unfolded again.
+   */
+  public void redefine(Definition definition) {
+    String name = definition.getName();
+    LinkedHashSet<String> cone = graph.getCone(Collections.singleton(name));
+    for(String affected : cone) index.remove(affected);
+
+    if(!eager) {
+      boolean added = !map.containsKey(name);
+      map.put(name, definition.getTerm());
+      definition = unshadowed(definition);
+
+      // a new name may be shadowed by binders of other definitions, which
+      // are replaced by renamed copies and rebuilt with the cone
+      if(added) {
+        for(int i = 0; i < definitions.length; i++) {
+          Definition other = definitions[i];
+          if(!binds(name, other.getTerm())) continue;
+
+          if(cone.add(other.getName())) index.remove(other.getName());
+          definitions[i] = unshadowed(other);
+          named.put(other.getName(), definitions[i]);
+          map.put(other.getName(), definitions[i].getTerm());
+          raw.put(other.getName(), definitions[i].getTerm());
+          graph.set(other.getName(), definitions[i].getTerm());
         }
-        if(definition.getTerm().equals(last)) break;
       }
     }
 
+    Definition old = named.put(name, definition);
+    if(old == null) {
+      definitions = Arrays.copyOf(definitions, definitions.length + 1);
+      definitions[definitions.length - 1] = definition;
+    } else {
+      definitions[Arrays.asList(definitions).indexOf(old)] = definition;
+    }
+    map.put(name, definition.getTerm());
+    raw.put(name, definition.getTerm());
+    graph.set(name, definition.getTerm());
+
+    rebuild(cone);
+  }
+
+  /**
+   * Removes a definition. The definitions which depend on it are
+   * invalidated and, if eager, unfolded again with the name left free.
+   */
+  public void remove(String name) {
+    Definition old = named.remove(name);
+    if(old == null) return;
+
+    LinkedHashSet<String> cone = graph.getCone(Collections.singleton(name));
+    for(String affected : cone) index.remove(affected);
+
+    ArrayList<Definition> rest = new ArrayList<Definition>(Arrays.asList(definitions));
+    rest.remove(old);
+    definitions = rest.toArray(new Definition[rest.size()]);
+    map.remove(name);
+    raw.remove(name);
+    normalForms.forget(name);
+    graph.remove(name);
+    if(!name.equals("Init")) modifications++;
+
+    cone.remove(name);
+    rebuild(cone);
+  }
+
+  /**
+   * Brings the definitions up to date with a new list, e.g. from parsing
+   * edited input. Only changed, added and removed definitions and the
+   * definitions depending on them are rebuilt. Of several definitions of
+   * a name the last one counts.
+   */
+  public void update(Definition[] definitions) {
+    definitions = distinct(definitions);
+    HashSet<String> names = new HashSet<String>();
+    for(Definition definition : definitions) {
+      names.add(definition.getName());
+      LambdaTerm old = raw.get(definition.getName());
+      if(old == null || old != definition.getTerm() && !old.equals(definition.getTerm())) redefine(definition);
+    }
+    for(Definition definition : this.definitions) {
+      if(!names.contains(definition.getName())) remove(definition.getName());
+    }
+
+    // order of the new list
+    Definition[] ordered = new Definition[definitions.length];
+    for(int i = 0; i < definitions.length; i++) ordered[i] = named.get(definitions[i].getName());
+    this.definitions = ordered;
+  }
+
+  /**
+   * @return the definitions with only the last definition of every name,
+   *         at the place of that one
+   */
+  private static Definition[] distinct(Definition[] definitions) {
+    LinkedHashMap<String, Definition> distinct = new LinkedHashMap<String, Definition>();
     for(Definition definition : definitions) {
-      map.put(definition.getName(), definition.getTerm());
+      distinct.remove(definition.getName());
+      distinct.put(definition.getName(), definition);
+    }
+    if(distinct.size() == definitions.length) return definitions;
+    return distinct.values().toArray(new Definition[distinct.size()]);
+  }
+
+  /**
+   * Forgets everything derived from the given definitions and, if eager,
+   * unfolds them again, each after the ones it uses.
+   */
+  private void rebuild(Collection<String> cone) {
+    for(String affected : cone) {
+      normalForms.forget(affected);
+      if(unfolded != null) unfolded.remove(affected);
+      if(!affected.equals("Init")) modifications++;
+    }
+
+    if(eager) {
+      for(List<String> component : graph.getComponents(cone)) {
+        for(String name : component) {
+          unfold(name, component);
+          named.get(name).setTerm(unfolded.get(name));
+          map.put(name, unfolded.get(name));
+        }
+      }
     }
+
+    for(String affected : cone) {
+      if(named.containsKey(affected)) index.add(named.get(affected));
+    }
+  }
+
+  /**
+   * Finds the definition of a term up to alpha equivalence, through an
+   * index by the alpha-invariant hash of the definitions.
+   *
+   * @return the first such definition other than Init, or null
+   */
+  public Definition lookup(LambdaTerm term) {
+    return lookup(term, AlphaHash.of(term));
+  }
+
+  /**
+   * Like lookup(term), for a hash computed before, e.g. with the hashes of
+   * all subterms by AlphaHash.all.
+   */
+  public Definition lookup(LambdaTerm term, int hash) {
+    return index.lookup(term, hash);
+  }
+
+  /**
+   * Replaces all constants in a copy of the term by their definitions.
+   * Names of recursive definitions stay folded.
+   */
+  public LambdaTerm unfold(LambdaTerm term) {
+    if(unfolded == null || unfolded.size() < raw.size()) unfoldAll();
+    return term.copy().replace(unfolded);
+  }
+
+  /**
+   * Unfolds the definitions in topological order, each one once.
+   */
+  private void unfoldAll() {
+    if(unfolded == null) unfolded = new HashMap<String, LambdaTerm>();
+    for(List<String> component : graph.getComponents()) {
+      for(String name : component) {
+        if(!unfolded.containsKey(name)) unfold(name, component);
+      }
+    }
+  }
+
+  /**
+   * Unfolds a definition whose dependencies outside its strongly connected
+   * component are unfolded already. Names of recursive definitions stay
+   * folded inside their component.
+   */
+  private void unfold(String name, List<String> component) {
+    HashMap<String, LambdaTerm> terms = new HashMap<String, LambdaTerm>();
+    for(String dependency : graph.getDependencies(name)) {
+      if(!component.contains(dependency)) terms.put(dependency, unfolded.get(dependency));
+    }
+
+    LambdaTerm term = raw.get(name);
+    unfolded.put(name, terms.isEmpty() ? term : term.copy().replace(terms));
   }
 
   public LambdaTerm get(String name) {
     return map.get(name);
   }
 
+  /**
+   * @return the hash a definition is indexed by, or null for Init
+   */
+  Integer getHash(String name) {
+    return index.getHash(name);
+  }
+
+  /**
+   * @return the term as written, before unfolding
+   */
+  LambdaTerm getRaw(String name) {
+    return raw.get(name);
+  }
+
+  /**
+   * @return a count which changes whenever a definition other than Init
+   *         is added, replaced or removed, e.g. to notice that something
+   *         compiled from the definitions is out of date
+   */
+  public int getModifications() {
+    return modifications;
+  }
+
+  public boolean isEager() {
+    return eager;
+  }
+
+  /**
+   * @return the normal form of a definition if it is known, e.g. from
+   *         Prenormalizer, otherwise null
+   */
+  public LambdaTerm getNormalForm(String name) {
+    return normalForms.get(name);
+  }
+
+  /**
+   * Stores the normal form of a definition, which is unfolded instead of
+   * the definition during reduction. It is forgotten when the definition
+   * or one it uses changes.
+   */
+  public void setNormalForm(String name, LambdaTerm term) {
+    normalForms.put(name, eager ? term : renameShadowing(term));
+  }
+
   public Definition[] getDefinitions() {
     return definitions;
   }
+
+  /**
+   * Checks whether a definition is in normal form even when the constants
+   * it uses are unfolded, i.e. whether it can stay folded in a normal form.
+   */
+  public boolean isNormal(String name) {
+    return normalForms.isNormal(name);
+  }
+
+  /**
+   * @return the definition, or a copy with the binders renamed which have
+   *         the name of a definition; shared definitions are not changed
+   */
+  private Definition unshadowed(Definition definition) {
+    if(!shadows(definition.getTerm())) return definition;
+    return new Definition(definition.getName(), renameShadowing(definition.getTerm().copy()));
+  }
+
+  private boolean shadows(LambdaTerm term) {
+    if(term instanceof Lambda) return map.containsKey(((Lambda) term).getName()) || shadows(((Lambda) term).getTerm());
+    if(term instanceof Application) return shadows(((Application) term).getLeft()) || shadows(((Application) term).getRight());
+    return false;
+  }
+
+  private static boolean binds(String name, LambdaTerm term) {
+    if(term instanceof Lambda) return ((Lambda) term).getName().equals(name) || binds(name, ((Lambda) term).getTerm());
+    if(term instanceof Application) return binds(name, ((Application) term).getLeft()) || binds(name, ((Application) term).getRight());
+    return false;
+  }
+
+  /**
+   * Renames binders which have the name of a definition.
+   */
+  private LambdaTerm renameShadowing(LambdaTerm term) {
+    if(term instanceof Lambda) {
+      Lambda lambda = (Lambda) term;
+      if(map.containsKey(lambda.getName())) {
+        String name = lambda.getName();
+        int suffix = 0;
+        while(map.containsKey(name + suffix) || occurs(name + suffix, lambda.getTerm())) suffix++;
+        lambda.setTerm(lambda.getTerm().substitute(name, new Variable(name + suffix)));
+        lambda.setName(name + suffix);
+      }
+      lambda.setTerm(renameShadowing(lambda.getTerm()));
+    } else if(term instanceof Application) {
+      Application application = (Application) term;
+      application.setLeft(renameShadowing(application.getLeft()));
+      application.setRight(renameShadowing(application.getRight()));
+    }
+    return term;
+  }
+
+  private static boolean occurs(String name, LambdaTerm term) {
+    if(term instanceof Variable) return ((Variable) term).getName().equals(name);
+    if(term instanceof Lambda) return ((Lambda) term).getName().equals(name) || occurs(name, ((Lambda) term).getTerm());
+    Application application = (Application) term;
+    return occurs(name, application.getLeft()) || occurs(name, application.getRight());
+  }
 }
@@ -0,0 +1,188 @@
+package lambda.parser;
+
+import lambda.LambdaTerm;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which definitions use which. References to names which are not defined
+ * are kept too, so a definition added later finds its dependents.
+ */
+public class DependencyGraph {
+  private LinkedHashMap<String, LinkedHashSet<String>> references = new LinkedHashMap<String, LinkedHashSet<String>>();
+  private HashMap<String, HashSet<String>> referencedBy = new HashMap<String, HashSet<String>>();
+
+  public DependencyGraph(Map<String, LambdaTerm> definitions) {
+    for(Map.Entry<String, LambdaTerm> definition : definitions.entrySet()) {
+      set(definition.getKey(), definition.getValue());
+    }
+  }
+
+  /**
+   * Adds or replaces the edges of a definition.
+   */
+  public void set(String name, LambdaTerm term) {
+    remove(name);
+
+    HashSet<String> freeVariables = new HashSet<String>();
+    term.getFreeVariables(freeVariables);
+    references.put(name, new LinkedHashSet<String>(freeVariables));
+
+    for(String freeVariable : freeVariables) {
+      HashSet<String> users = referencedBy.get(freeVariable);
+      if(users == null) {
+        users = new HashSet<String>();
+        referencedBy.put(freeVariable, users);
+      }
+      users.add(name);
+    }
+  }
+
+  public void remove(String name) {
+    LinkedHashSet<String> old = references.remove(name);
+    if(old == null) return;
+
+    for(String reference : old) {
+      HashSet<String> users = referencedBy.get(reference);
+      users.remove(name);
+      if(users.isEmpty()) referencedBy.remove(reference);
+    }
+  }
+
+  /**
+   * @return the definitions used by a definition
+   */
+  public List<String> getDependencies(String name) {
+    ArrayList<String> dependencies = new ArrayList<String>();
+    LinkedHashSet<String> names = references.get(name);
+    if(names == null) return dependencies;
+
+    for(String reference : names) {
+      if(references.containsKey(reference)) dependencies.add(reference);
+    }
+    return dependencies;
+  }
+
+  /**
+   * @return the definitions using a name directly
+   */
+  public Collection<String> getDependents(String name) {
+    HashSet<String> users = referencedBy.get(name);
+    return users != null ? users : new HashSet<String>();
+  }
+
+  /**
+   * @return the names and all definitions using them directly or indirectly
+   */
+  public LinkedHashSet<String> getCone(Collection<String> names) {
+    LinkedHashSet<String> cone = new LinkedHashSet<String>(names);
+    ArrayList<String> work = new ArrayList<String>(names);
+    while(!work.isEmpty()) {
+      for(String user : getDependents(work.remove(work.size() - 1))) {
+        if(cone.add(user)) work.add(user);
+      }
+    }
+    return cone;
+  }
+
+  /**
+   * @return the strongly connected components of all definitions
+   */
+  public List<List<String>> getComponents() {
+    return getComponents(references.keySet());
+  }
+
+  /**
+   * Computes the strongly connected components among the given
+   * definitions with Tarjan's algorithm. Definitions in one component
+   * are mutually recursive.
+   *
+   * @return the components, each one after those it depends on
+   */
+  public List<List<String>> getComponents(Collection<String> names) {
+    HashSet<String> nodes = new HashSet<String>();
+    for(String name : names) {
+      if(references.containsKey(name)) nodes.add(name);
+    }
+
+    HashMap<String, Integer> indices = new HashMap<String, Integer>();
+    HashMap<String, Integer> lowlinks = new HashMap<String, Integer>();
+    ArrayList<String> stack = new ArrayList<String>();
+    HashSet<String> onStack = new HashSet<String>();
+    List<List<String>> components = new ArrayList<List<String>>();
+
+    // depth first search with an explicit path, preludes can be long chains
+    ArrayList<String> path = new ArrayList<String>();
+    ArrayList<Iterator<String>> iterators = new ArrayList<Iterator<String>>();
+    for(String root : names) {
+      if(!nodes.contains(root) || indices.containsKey(root)) continue;
+
+      visit(root, indices, lowlinks, stack, onStack, path, iterators);
+      while(!path.isEmpty()) {
+        String node = path.get(path.size() - 1);
+        Iterator<String> iterator = iterators.get(iterators.size() - 1);
+
+        if(iterator.hasNext()) {
+          String next = iterator.next();
+          if(!nodes.contains(next)) continue;
+          if(!indices.containsKey(next)) {
+            visit(next, indices, lowlinks, stack, onStack, path, iterators);
+          } else if(onStack.contains(next)) {
+            lowlinks.put(node, Math.min(lowlinks.get(node), indices.get(next)));
+          }
+          continue;
+        }
+
+        path.remove(path.size() - 1);
+        iterators.remove(iterators.size() - 1);
+        if(!path.isEmpty()) {
+          String parent = path.get(path.size() - 1);
+          lowlinks.put(parent, Math.min(lowlinks.get(parent), lowlinks.get(node)));
+        }
+
+        if(lowlinks.get(node).equals(indices.get(node))) {
+          ArrayList<String> component = new ArrayList<String>();
+          String member;
+          do {
+            member = stack.remove(stack.size() - 1);
+            onStack.remove(member);
+            component.add(member);
+          } while(!member.equals(node));
+          components.add(component);
+        }
+      }
+    }
+    return components;
+  }
+
+  private void visit(String node, HashMap<String, Integer> indices, HashMap<String, Integer> lowlinks, ArrayList<String> stack, HashSet<String> onStack, ArrayList<String> path, ArrayList<Iterator<String>> iterators) {
+    indices.put(node, indices.size());
+    lowlinks.put(node, indices.get(node));
+    stack.add(node);
+    onStack.add(node);
+    path.add(node);
+    iterators.add(references.get(node).iterator());
+  }
+
+  /**
+   * @return whether a definition uses itself, directly or indirectly
+   */
+  public boolean isRecursive(String name) {
+    HashSet<String> seen = new HashSet<String>();
+    ArrayList<String> work = new ArrayList<String>(getDependencies(name));
+    while(!work.isEmpty()) {
+      String dependency = work.remove(work.size() - 1);
+      if(dependency.equals(name)) return true;
+      if(seen.add(dependency)) work.addAll(getDependencies(dependency));
+    }
+    return false;
+  }
+}
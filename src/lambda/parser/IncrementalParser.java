@@ -0,0 +1,42 @@
+package lambda.parser;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Parser for input which is edited between parses. The input is split
+ * into definitions at every ';' and only definitions whose text changed
+ * are parsed again. The others are the same Definition objects as last
+ * time, which Definitions.update skips without comparing their terms.
+ */
+public class IncrementalParser {
+  private HashMap<String, Definition> parsed = new HashMap<String, Definition>();
+
+  public Definition[] parse(String string) {
+    HashMap<String, Definition> texts = new HashMap<String, Definition>();
+    ArrayList<Definition> definitions = new ArrayList<Definition>();
+
+    try {
+      int start = 0;
+      for(int end = string.indexOf(';'); end >= 0; end = string.indexOf(';', start)) {
+        definitions.add(parse(string.substring(start, end + 1), texts));
+        start = end + 1;
+      }
+      if(!string.substring(start).trim().isEmpty()) definitions.add(parse(string.substring(start), texts));
+    } catch(RuntimeException e) {
+      // a ';' which does not end a definition, e.g. in a comment
+      parsed.clear();
+      return LambdaTermParser.parseDefinitions(string);
+    }
+
+    parsed = texts;
+    return definitions.toArray(new Definition[definitions.size()]);
+  }
+
+  private Definition parse(String text, HashMap<String, Definition> texts) {
+    Definition definition = parsed.get(text);
+    if(definition == null) definition = LambdaTermParser.parseDefinition(text);
+    texts.put(text, definition);
+    return definition;
+  }
+}
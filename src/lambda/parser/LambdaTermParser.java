@@ -14,12 +14,35 @@ public final class LambdaTermParser {
   private static final Terms words = Terms.getOperatorsInstance(operators);
 
   public static Definitions parse(String string) {
-    Definition[] definitions = (Definition[])
-            Parsers.runParser(string,
-                    Parsers.parseTokens(getLexer(), getParser(), "LambdaTermParser"),
-                    new DefaultPositionMap(string, 1, 1), "LambdaTermParser");
+    return parse(string, true);
+  }
 
-    return new Definitions(definitions);
+  /**
+   * @param unfold whether definitions are unfolded now or during reduction
+   */
+  public static Definitions parse(String string, boolean unfold) {
+    return new Definitions(parseDefinitions(string), unfold);
+  }
+
+  /**
+   * Parses definitions without building Definitions from them.
+   */
+  public static Definition[] parseDefinitions(String string) {
+    return run(string, getParser());
+  }
+
+  /**
+   * Parses a single definition name = term;
+   */
+  public static Definition parseDefinition(String string) {
+    return run(string, definition().followedBy(Parsers.eof()));
+  }
+
+  private static <R> R run(String string, Parser<R> parser) {
+    Parser<Tok[]> lexer = getLexer();
+    return Parsers.runParser(string,
+                    Parsers.parseTokens(lexer, parser, "LambdaTermParser"),
+                    new DefaultPositionMap(string, 1, 1), "LambdaTermParser");
   }
 
   private static Parser getLexer() {
@@ -0,0 +1,87 @@
+package lambda.parser;
+
+import lambda.Application;
+import lambda.Lambda;
+import lambda.LambdaTerm;
+import lambda.Variable;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+/**
+ * What is known about the normal forms of definitions: normal forms
+ * computed ahead, e.g. by Prenormalizer, and which definitions are normal
+ * even when the constants they use are unfolded.
+ */
+public class NormalForms {
+  private Map<String, LambdaTerm> terms;
+  private HashMap<String, LambdaTerm> normalForms = new HashMap<String, LambdaTerm>();
+  private HashMap<String, Boolean> normal = new HashMap<String, Boolean>();
+
+  /**
+   * @param terms the terms of the definitions as in use, which are read
+   *              when asked and not copied
+   */
+  public NormalForms(Map<String, LambdaTerm> terms) {
+    this.terms = terms;
+  }
+
+  /**
+   * @return the normal form of a definition if it is known, otherwise null
+   */
+  public LambdaTerm get(String name) {
+    return normalForms.get(name);
+  }
+
+  public void put(String name, LambdaTerm term) {
+    normalForms.put(name, term);
+    normal.clear();
+  }
+
+  /**
+   * Forgets what is known about a definition, after it or one it uses
+   * changed.
+   */
+  public void forget(String name) {
+    normalForms.remove(name);
+    normal.remove(name);
+  }
+
+  /**
+   * Checks whether a definition is in normal form even when the constants
+   * it uses are unfolded, i.e. whether it can stay folded in a normal form.
+   */
+  public boolean isNormal(String name) {
+    if(normalForms.containsKey(name)) return true;
+    Boolean isNormal = normal.get(name);
+    if(isNormal != null) return isNormal;
+
+    // recursive definitions are not normal
+    normal.put(name, false);
+
+    LambdaTerm term = terms.get(name);
+    isNormal = !term.hasRedexDeep() && !hasAppliedConstant(term);
+    if(isNormal) {
+      HashSet<String> freeVariables = new HashSet<String>();
+      term.getFreeVariables(freeVariables);
+      for(String freeVariable : freeVariables) {
+        if(terms.containsKey(freeVariable) && !isNormal(freeVariable)) isNormal = false;
+      }
+    }
+
+    normal.put(name, isNormal);
+    return isNormal;
+  }
+
+  private boolean hasAppliedConstant(LambdaTerm term) {
+    if(term instanceof Lambda) return hasAppliedConstant(((Lambda) term).getTerm());
+    if(term instanceof Application) {
+      Application application = (Application) term;
+      LambdaTerm left = application.getLeft();
+      if(left instanceof Variable && terms.containsKey(((Variable) left).getName())) return true;
+      return hasAppliedConstant(left) || hasAppliedConstant(application.getRight());
+    }
+    return false;
+  }
+}
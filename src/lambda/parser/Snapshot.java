@@ -0,0 +1,206 @@
+package lambda.parser;
+
+import lambda.LambdaTerm;
+import lambda.io.TermDecoder;
+import lambda.io.TermEncoder;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Binary snapshot of parsed and unfolded definitions, so a large prelude
+ * need not be parsed and unfolded at every start. A snapshot belongs to
+ * the SHA-256 hash of its source text and is stale once the text changes.
+ *
+ * Layout, big endian: magic, version, eager flag, source hash, then for
+ * every definition its name, the AlphaHash it is indexed by (0 for Init)
+ * and whether it is unfolded, and finally the terms as written and, if
+ * eager, unfolded in the format of TermEncoder, so subterms unfolded into
+ * many definitions are stored once. The index is restored from the stored
+ * hashes without hashing the terms again, so the version must change
+ * whenever AlphaHash does.
+ *
+ * Usage: Snapshot source snapshot [lazy]
+ */
+public class Snapshot {
+  private static final int MAGIC = 0x4c43534e;
+  private static final int VERSION = 3;
+
+  // whether the unfolded term is the term as written
+  private static final byte SAME = 0;
+  private static final byte UNFOLDED = 1;
+
+  /**
+   * Loads the snapshot of the source if it is up to date, otherwise parses
+   * the source and writes a new snapshot.
+   */
+  public static Definitions parse(String source, File file, boolean eager) throws IOException {
+    Definitions definitions = load(source, file, eager);
+    if(definitions != null) return definitions;
+
+    definitions = LambdaTermParser.parse(source, eager);
+    write(definitions, source, file);
+    return definitions;
+  }
+
+  /**
+   * Maps the snapshot into memory and restores the definitions.
+   *
+   * @return the definitions or null if the snapshot is missing, stale or
+   *         was written for the other mode
+   */
+  public static Definitions load(String source, File file, boolean eager) throws IOException {
+    if(!file.isFile()) return null;
+
+    RandomAccessFile input = new RandomAccessFile(file, "r");
+    try {
+      FileChannel channel = input.getChannel();
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      try {
+        return read(buffer, digest(source), eager);
+      } catch(IOException e) {
+        // truncated or corrupt term stream
+        return null;
+      } catch(RuntimeException e) {
+        // truncated or corrupt header
+        return null;
+      }
+    } finally {
+      input.close();
+    }
+  }
+
+  private static Definitions read(ByteBuffer buffer, byte[] digest, boolean eager) throws IOException {
+    if(buffer.getInt() != MAGIC || buffer.getInt() != VERSION) return null;
+    if((buffer.get() != 0) != eager) return null;
+
+    byte[] stored = new byte[digest.length];
+    buffer.get(stored);
+    if(!Arrays.equals(stored, digest)) return null;
+
+    // a name takes at least its length, hash and flag
+    int count = buffer.getInt();
+    if(count < 0 || count > buffer.remaining() / 7) return null;
+    String[] names = new String[count];
+    int[] hashes = new int[names.length];
+    boolean[] unfolded = new boolean[names.length];
+    for(int i = 0; i < names.length; i++) {
+      byte[] bytes = new byte[buffer.getShort() & 0xffff];
+      buffer.get(bytes);
+      names[i] = new String(bytes, StandardCharsets.UTF_8);
+      hashes[i] = buffer.getInt();
+      unfolded[i] = buffer.get() == UNFOLDED;
+    }
+
+    // the definitions may be rewritten, so shared subterms are copied
+    TermDecoder decoder = new TermDecoder(buffer.slice(), false);
+    Definition[] definitions = new Definition[names.length];
+    HashMap<String, LambdaTerm> raw = new HashMap<String, LambdaTerm>();
+    for(int i = 0; i < names.length; i++) {
+      LambdaTerm term = decoder.read();
+      raw.put(names[i], term);
+      if(unfolded[i]) term = decoder.read();
+
+      if(term == null) return null;
+      definitions[i] = new Definition(names[i], term);
+    }
+    return new Definitions(definitions, raw, hashes, eager);
+  }
+
+  /**
+   * Writes a snapshot of definitions parsed from the source. It is written
+   * to a temporary file first and then moved over the old snapshot, so a
+   * crash while writing leaves the old snapshot or none.
+   */
+  public static void write(Definitions definitions, String source, File file) throws IOException {
+    File temporary = File.createTempFile(file.getName(), ".tmp", file.getAbsoluteFile().getParentFile());
+    try {
+      write(definitions, source, new FileOutputStream(temporary));
+      try {
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch(AtomicMoveNotSupportedException e) {
+        Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temporary.toPath());
+    }
+  }
+
+  private static void write(Definitions definitions, String source, FileOutputStream stream) throws IOException {
+    DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream));
+    try {
+      output.writeInt(MAGIC);
+      output.writeInt(VERSION);
+      output.writeBoolean(definitions.isEager());
+      output.write(digest(source));
+
+      output.writeInt(definitions.getDefinitions().length);
+      for(Definition definition : definitions.getDefinitions()) {
+        byte[] bytes = definition.getName().getBytes(StandardCharsets.UTF_8);
+        output.writeShort(bytes.length);
+        output.write(bytes);
+        Integer hash = definitions.getHash(definition.getName());
+        output.writeInt(hash != null ? hash : 0);
+        output.writeByte(definition.getTerm() == definitions.getRaw(definition.getName()) ? SAME : UNFOLDED);
+      }
+      output.flush();
+
+      TermEncoder encoder = new TermEncoder(Channels.newChannel(output));
+      for(Definition definition : definitions.getDefinitions()) {
+        LambdaTerm raw = definitions.getRaw(definition.getName());
+        encoder.write(raw);
+        if(definition.getTerm() != raw) encoder.write(definition.getTerm());
+      }
+      encoder.flush();
+      output.flush();
+      stream.getFD().sync();
+    } finally {
+      output.close();
+    }
+  }
+
+  private static byte[] digest(String source) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(source.getBytes(StandardCharsets.UTF_8));
+    } catch(NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public static void main(String[] args) throws IOException {
+    if(args.length < 2) {
+      System.err.println("Usage: Snapshot source snapshot [lazy]");
+      System.exit(1);
+    }
+    String source = new String(Files.readAllBytes(new File(args[0]).toPath()), StandardCharsets.UTF_8);
+    boolean eager = args.length < 3 || !args[2].equals("lazy");
+    File file = new File(args[1]);
+
+    long start = System.nanoTime();
+    Definitions definitions = LambdaTermParser.parse(source, eager);
+    long parsed = System.nanoTime();
+    write(definitions, source, file);
+    long written = System.nanoTime();
+    load(source, file, eager);
+    long loaded = System.nanoTime();
+
+    System.out.println(String.format("%d definitions, %d bytes", definitions.getDefinitions().length, file.length()));
+    System.out.println(String.format("parse %.3f ms, write %.3f ms, load %.3f ms",
+            (parsed - start) / 1e6, (written - parsed) / 1e6, (loaded - written) / 1e6));
+  }
+}
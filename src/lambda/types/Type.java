@@ -0,0 +1,115 @@
+package lambda.types;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Simple type: a type variable or a function type. Types are the nodes of
+ * a union-find structure, unified types share a representative.
+ */
+public class Type {
+  private Type parent = this;
+  private int rank = 0;
+  private Type domain;
+  private Type codomain;
+
+  /**
+   * Creates a fresh type variable.
+   */
+  Type() {
+  }
+
+  Type(Type domain, Type codomain) {
+    this.domain = domain;
+    this.codomain = codomain;
+  }
+
+  /**
+   * @return the representative of the type
+   */
+  Type find() {
+    Type root = this;
+    while(root.parent != root) root = root.parent;
+
+    // path compression
+    Type type = this;
+    while(type != root) {
+      Type next = type.parent;
+      type.parent = root;
+      type = next;
+    }
+    return root;
+  }
+
+  /**
+   * Merges the classes of two representatives, keeping a function type
+   * as representative.
+   */
+  static void union(Type type, Type other) {
+    if(other.isFunction() && !type.isFunction()) {
+      type.parent = other;
+    } else if(type.isFunction() && !other.isFunction()) {
+      other.parent = type;
+    } else if(type.rank < other.rank) {
+      type.parent = other;
+    } else {
+      other.parent = type;
+      if(type.rank == other.rank) type.rank++;
+    }
+  }
+
+  public boolean isFunction() {
+    return find().domain != null;
+  }
+
+  public Type getDomain() {
+    Type domain = find().domain;
+    return domain != null ? domain.find() : null;
+  }
+
+  public Type getCodomain() {
+    Type codomain = find().codomain;
+    return codomain != null ? codomain.find() : null;
+  }
+
+  public String toString() {
+    StringBuilder string = new StringBuilder();
+    HashMap<Type, String> names = new HashMap<Type, String>();
+
+    // right nested function types need no parentheses
+    ArrayList<Object> stack = new ArrayList<Object>();
+    stack.add(this);
+    while(!stack.isEmpty()) {
+      Object item = stack.remove(stack.size() - 1);
+      if(item instanceof String) {
+        string.append(item);
+        continue;
+      }
+
+      Type type = ((Type) item).find();
+      if(!type.isFunction()) {
+        String name = names.get(type);
+        if(name == null) {
+          name = variableName(names.size());
+          names.put(type, name);
+        }
+        string.append(name);
+      } else if(type.getDomain().isFunction()) {
+        stack.add(type.getCodomain());
+        stack.add(") -> ");
+        stack.add(type.getDomain());
+        stack.add("(");
+      } else {
+        stack.add(type.getCodomain());
+        stack.add(" -> ");
+        stack.add(type.getDomain());
+      }
+    }
+    return string.toString();
+  }
+
+  private static String variableName(int index) {
+    String name = String.valueOf((char) ('a' + index % 26));
+    return index < 26 ? name : name + index / 26;
+  }
+}
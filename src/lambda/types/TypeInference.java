@@ -0,0 +1,169 @@
+package lambda.types;
+
+import lambda.Application;
+import lambda.Lambda;
+import lambda.LambdaTerm;
+import lambda.Variable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+/**
+ * Simple type inference. Constraints are solved by unification on a
+ * union-find structure without occurs check; cyclic, i.e. infinite types
+ * are rejected once at the end, which keeps the inference near-linear.
+ * Simply typed terms are strongly normalizing.
+ *
+ * Free variables have one type for all their occurrences. Definitions
+ * are unfolded before the inference, so there is no let-polymorphism.
+ */
+public class TypeInference {
+  private ArrayList<Type> functions = new ArrayList<Type>();
+  private HashMap<String, ArrayList<Type>> binders = new HashMap<String, ArrayList<Type>>();
+  private HashMap<String, Type> freeVariables = new HashMap<String, Type>();
+
+  private TypeInference() {
+  }
+
+  /**
+   * @return the most general type of the term or null if it has no simple type
+   */
+  public static Type infer(LambdaTerm term) {
+    TypeInference inference = new TypeInference();
+    Type type = inference.type(term);
+    return inference.isAcyclic() ? type : null;
+  }
+
+  public static boolean isTypeable(LambdaTerm term) {
+    return infer(term) != null;
+  }
+
+  /**
+   * Types the term in post-order with an explicit stack, since terms can
+   * be much deeper than the Java stack allows.
+   */
+  private Type type(LambdaTerm term) {
+    ArrayList<LambdaTerm> work = new ArrayList<LambdaTerm>();
+    ArrayList<Boolean> visited = new ArrayList<Boolean>();
+    ArrayList<Type> types = new ArrayList<Type>();
+    work.add(term);
+    visited.add(false);
+
+    while(!work.isEmpty()) {
+      LambdaTerm current = work.remove(work.size() - 1);
+      boolean done = visited.remove(visited.size() - 1);
+
+      if(current instanceof Variable) {
+        types.add(variable(((Variable) current).getName()));
+      } else if(current instanceof Lambda) {
+        Lambda lambda = (Lambda) current;
+        ArrayList<Type> scope = binders.get(lambda.getName());
+        if(!done) {
+          if(scope == null) {
+            scope = new ArrayList<Type>();
+            binders.put(lambda.getName(), scope);
+          }
+          scope.add(new Type());
+          work.add(lambda);
+          visited.add(true);
+          work.add(lambda.getTerm());
+          visited.add(false);
+        } else {
+          Type domain = scope.remove(scope.size() - 1);
+          types.add(function(domain, types.remove(types.size() - 1)));
+        }
+      } else {
+        Application application = (Application) current;
+        if(!done) {
+          work.add(application);
+          visited.add(true);
+          work.add(application.getRight());
+          visited.add(false);
+          work.add(application.getLeft());
+          visited.add(false);
+        } else {
+          Type argument = types.remove(types.size() - 1);
+          Type function = types.remove(types.size() - 1);
+          Type result = new Type();
+          unify(function, function(argument, result));
+          types.add(result);
+        }
+      }
+    }
+    return types.get(0);
+  }
+
+  private Type variable(String name) {
+    ArrayList<Type> scope = binders.get(name);
+    if(scope != null && !scope.isEmpty()) return scope.get(scope.size() - 1);
+
+    Type type = freeVariables.get(name);
+    if(type == null) {
+      type = new Type();
+      freeVariables.put(name, type);
+    }
+    return type;
+  }
+
+  private Type function(Type domain, Type codomain) {
+    Type type = new Type(domain, codomain);
+    functions.add(type);
+    return type;
+  }
+
+  private void unify(Type type, Type other) {
+    ArrayList<Type> pairs = new ArrayList<Type>();
+    pairs.add(type);
+    pairs.add(other);
+
+    while(!pairs.isEmpty()) {
+      Type left = pairs.remove(pairs.size() - 1).find();
+      Type right = pairs.remove(pairs.size() - 1).find();
+      if(left == right) continue;
+
+      if(left.isFunction() && right.isFunction()) {
+        pairs.add(left.getDomain());
+        pairs.add(right.getDomain());
+        pairs.add(left.getCodomain());
+        pairs.add(right.getCodomain());
+      }
+      Type.union(left, right);
+    }
+  }
+
+  /**
+   * Checks that no function type contains itself.
+   */
+  private boolean isAcyclic() {
+    final int active = 1;
+    final int finished = 2;
+    HashMap<Type, Integer> state = new HashMap<Type, Integer>();
+
+    for(Type function : functions) {
+      ArrayList<Type> stack = new ArrayList<Type>();
+      stack.add(function.find());
+      while(!stack.isEmpty()) {
+        Type type = stack.get(stack.size() - 1);
+        Integer current = state.get(type);
+
+        if(current == null) {
+          if(!type.isFunction()) {
+            state.put(type, finished);
+            stack.remove(stack.size() - 1);
+            continue;
+          }
+          state.put(type, active);
+          for(Type child : new Type[] {type.getDomain(), type.getCodomain()}) {
+            Integer childState = state.get(child);
+            if(childState == null) stack.add(child);
+            else if(childState == active) return false;
+          }
+        } else {
+          if(current == active) state.put(type, finished);
+          stack.remove(stack.size() - 1);
+        }
+      }
+    }
+    return true;
+  }
+}
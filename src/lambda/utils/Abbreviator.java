@@ -0,0 +1,175 @@
+package lambda.utils;
+
+import lambda.Application;
+import lambda.Lambda;
+import lambda.LambdaTerm;
+import lambda.Variable;
+import lambda.parser.Definition;
+import lambda.parser.Definitions;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Prints a term with repeated subterms abbreviated: each one is printed
+ * once as #n = ... on a line of its own and referred to by #n elsewhere.
+ * Subterms are identified by hash consing, so equal subterms are found in
+ * time linear in the size of the term and only once if they are shared.
+ * An abbreviation stands for its text, like a macro.
+ */
+public class Abbreviator {
+  private int minSize;
+
+  /**
+   * @param minSize number of nodes from which a repeated subterm is abbreviated
+   */
+  public Abbreviator(int minSize) {
+    this.minSize = minSize;
+  }
+
+  public String toString(LambdaTerm term, Definitions definitions) {
+    // number every distinct subterm, children first
+    IdentityHashMap<LambdaTerm, Integer> ids = new IdentityHashMap<LambdaTerm, Integer>();
+    HashMap<String, Integer> keys = new HashMap<String, Integer>();
+    ArrayList<Long> sizes = new ArrayList<Long>();
+    ArrayList<LambdaTerm> stack = new ArrayList<LambdaTerm>();
+    stack.add(term);
+    while(!stack.isEmpty()) {
+      LambdaTerm node = stack.get(stack.size() - 1);
+      if(ids.containsKey(node)) {
+        stack.remove(stack.size() - 1);
+        continue;
+      }
+
+      String key;
+      long size;
+      if(node instanceof Variable) {
+        key = "v " + ((Variable) node).getName();
+        size = 1;
+      } else if(node instanceof Lambda) {
+        Integer body = ids.get(((Lambda) node).getTerm());
+        if(body == null) {
+          stack.add(((Lambda) node).getTerm());
+          continue;
+        }
+        key = "l " + ((Lambda) node).getName() + " " + body;
+        size = 1 + sizes.get(body);
+      } else {
+        Integer left = ids.get(((Application) node).getLeft());
+        Integer right = ids.get(((Application) node).getRight());
+        if(left == null || right == null) {
+          if(right == null) stack.add(((Application) node).getRight());
+          if(left == null) stack.add(((Application) node).getLeft());
+          continue;
+        }
+        key = "a " + left + " " + right;
+        size = 1 + sizes.get(left) + sizes.get(right);
+      }
+
+      Integer id = keys.get(key);
+      if(id == null) {
+        id = sizes.size();
+        keys.put(key, id);
+        sizes.add(size);
+      }
+      ids.put(node, id);
+      stack.remove(stack.size() - 1);
+    }
+
+    // count the occurrences which are printed, i.e. not inside a repetition
+    // or a defined name
+    IdentityHashMap<LambdaTerm, Integer> hashes = definitions != null ? AlphaHash.all(term) : null;
+    int[] counts = new int[sizes.size()];
+    HashMap<Integer, String> names = new HashMap<Integer, String>();
+    stack.add(term);
+    while(!stack.isEmpty()) {
+      LambdaTerm node = stack.remove(stack.size() - 1);
+      int id = ids.get(node);
+      if(counts[id]++ > 0 || node instanceof Variable) continue;
+
+      Definition defined = definitions != null ? definitions.lookup(node, hashes.get(node)) : null;
+      if(defined != null) {
+        names.put(id, defined.getName());
+      } else if(node instanceof Lambda) {
+        stack.add(((Lambda) node).getTerm());
+      } else {
+        stack.add(((Application) node).getRight());
+        stack.add(((Application) node).getLeft());
+      }
+    }
+
+    // abbreviations are numbered innermost first, so each is defined before it is used
+    HashMap<Integer, Integer> abbreviations = new HashMap<Integer, Integer>();
+    ArrayList<LambdaTerm> bodies = new ArrayList<LambdaTerm>();
+    boolean[] visited = new boolean[sizes.size()];
+    stack.add(term);
+    while(!stack.isEmpty()) {
+      LambdaTerm node = stack.get(stack.size() - 1);
+      int id = ids.get(node);
+      if(!visited[id] && !names.containsKey(id)) {
+        visited[id] = true;
+        if(node instanceof Lambda) {
+          stack.add(((Lambda) node).getTerm());
+          continue;
+        } else if(node instanceof Application) {
+          stack.add(((Application) node).getRight());
+          stack.add(((Application) node).getLeft());
+          continue;
+        }
+      }
+      stack.remove(stack.size() - 1);
+
+      if(counts[id] >= 2 && sizes.get(id) >= minSize && !names.containsKey(id) && !abbreviations.containsKey(id)) {
+        abbreviations.put(id, abbreviations.size() + 1);
+        bodies.add(node);
+      }
+    }
+
+    StringBuilder builder = new StringBuilder();
+    for(int i = 0; i < bodies.size(); i++) {
+      builder.append('#').append(i + 1).append(" = ");
+      print(bodies.get(i), true, ids, names, abbreviations, builder);
+      builder.append('\n');
+    }
+    print(term, false, ids, names, abbreviations, builder);
+    return builder.toString();
+  }
+
+  /**
+   * Prints like LambdaTerm.toString(Definitions), with abbreviations.
+   *
+   * @param body whether the term is the body of its own abbreviation
+   */
+  private static void print(LambdaTerm term, boolean body, IdentityHashMap<LambdaTerm, Integer> ids, HashMap<Integer, String> names, HashMap<Integer, Integer> abbreviations, StringBuilder builder) {
+    ArrayList<Object> work = new ArrayList<Object>();
+    work.add(term);
+    while(!work.isEmpty()) {
+      Object item = work.remove(work.size() - 1);
+      if(item instanceof String) {
+        builder.append((String) item);
+        continue;
+      }
+
+      LambdaTerm node = (LambdaTerm) item;
+      int id = ids.get(node);
+      Integer abbreviation = abbreviations.get(id);
+      if(abbreviation != null && !(body && node == term)) {
+        builder.append('#').append(abbreviation);
+      } else if(names.containsKey(id)) {
+        builder.append(names.get(id));
+      } else if(node instanceof Variable) {
+        builder.append(((Variable) node).getName());
+      } else if(node instanceof Lambda) {
+        builder.append('\u03BB').append(((Lambda) node).getName()).append('.');
+        work.add(((Lambda) node).getTerm());
+      } else {
+        work.add(")");
+        work.add(((Application) node).getRight());
+        work.add(")(");
+        work.add(((Application) node).getLeft());
+        builder.append('(');
+      }
+    }
+  }
+}
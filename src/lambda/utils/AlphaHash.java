@@ -0,0 +1,146 @@
+package lambda.utils;
+
+import lambda.Application;
+import lambda.Lambda;
+import lambda.LambdaTerm;
+import lambda.Variable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * Hash of terms up to alpha equivalence, as LambdaTerm.equals compares
+ * them: bound variables count by their binder and free variables by name.
+ *
+ * A variable hashes its name, and every edge into a body, function or
+ * argument multiplies by an odd factor. An abstraction then replaces the
+ * names of the occurrences it binds by their de Bruijn indices, which
+ * needs only sums over the products of the factors on the paths to them.
+ * These sums are collected on the way down, so the hashes of all subterms
+ * of a term are computed bottom-up in one pass, each once.
+ *
+ * Snapshots store these hashes, so changing them needs a new snapshot
+ * version.
+ */
+public final class AlphaHash {
+  private static final int LAMBDA = 0x9E3779B1;
+  private static final int LEFT = 0x85EBCA6B;
+  private static final int RIGHT = 0xC2B2AE35;
+  private static final int BOUND = 0x27D4EB2F;
+
+  private AlphaHash() {
+  }
+
+  public static int of(LambdaTerm term) {
+    return compute(term, null);
+  }
+
+  /**
+   * @return the hash of every subterm of the term
+   */
+  public static IdentityHashMap<LambdaTerm, Integer> all(LambdaTerm term) {
+    IdentityHashMap<LambdaTerm, Integer> hashes = new IdentityHashMap<LambdaTerm, Integer>();
+    compute(term, hashes);
+    return hashes;
+  }
+
+  private static int compute(LambdaTerm term, IdentityHashMap<LambdaTerm, Integer> hashes) {
+    ArrayList<Frame> work = new ArrayList<Frame>();
+    int[] results = new int[16];
+    int resultCount = 0;
+
+    // for every binder in scope the sums of the path products of the
+    // occurrences it binds, plain and weighted by their indices, and the
+    // innermost binder of every name
+    int[] sums = new int[16];
+    int[] indexSums = new int[16];
+    int binderCount = 0;
+    HashMap<String, Integer> innermost = new HashMap<String, Integer>();
+
+    work.add(new Frame(term, 1));
+    while(!work.isEmpty()) {
+      Frame frame = work.get(work.size() - 1);
+      LambdaTerm node = frame.term;
+      int hash;
+
+      if(!frame.entered) {
+        frame.entered = true;
+        if(node instanceof Lambda) {
+          if(binderCount == sums.length) {
+            sums = Arrays.copyOf(sums, 2 * binderCount);
+            indexSums = Arrays.copyOf(indexSums, 2 * binderCount);
+          }
+          sums[binderCount] = 0;
+          indexSums[binderCount] = 0;
+          frame.shadowed = innermost.put(((Lambda) node).getName(), binderCount++);
+          work.add(new Frame(((Lambda) node).getTerm(), frame.product * LAMBDA));
+          continue;
+        }
+        if(node instanceof Application) {
+          work.add(new Frame(((Application) node).getRight(), frame.product * RIGHT));
+          work.add(new Frame(((Application) node).getLeft(), frame.product * LEFT));
+          continue;
+        }
+
+        String name = ((Variable) node).getName();
+        Integer binder = innermost.get(name);
+        if(binder != null) {
+          sums[binder] += frame.product;
+          indexSums[binder] += index(binderCount - 1 - binder) * frame.product;
+        }
+        hash = name(name);
+      } else if(node instanceof Lambda) {
+        String name = ((Lambda) node).getName();
+        int scale = inverse(frame.product * LAMBDA);
+        binderCount--;
+        int named = sums[binderCount] * scale;
+        int indexed = indexSums[binderCount] * scale;
+        if(frame.shadowed == null) innermost.remove(name);
+        else innermost.put(name, frame.shadowed);
+
+        hash = LAMBDA * (results[--resultCount] - name(name) * named + indexed) + 5;
+      } else {
+        int right = results[--resultCount];
+        int left = results[--resultCount];
+        hash = LEFT * left + RIGHT * right + 31;
+      }
+
+      work.remove(work.size() - 1);
+      if(hashes != null) hashes.put(node, hash);
+      if(resultCount == results.length) results = Arrays.copyOf(results, 2 * resultCount);
+      results[resultCount++] = hash;
+    }
+    return results[0];
+  }
+
+  private static int name(String name) {
+    return name.hashCode() * 0x01000193 + 1;
+  }
+
+  private static int index(int index) {
+    return (2 * index + 1) * BOUND;
+  }
+
+  /**
+   * @return the inverse of an odd number modulo 2^32
+   */
+  private static int inverse(int odd) {
+    int inverse = odd;
+    for(int i = 0; i < 5; i++) inverse *= 2 - odd * inverse;
+    return inverse;
+  }
+
+  private static final class Frame {
+    LambdaTerm term;
+    int product;  // product of the factors on the path from the root
+    boolean entered = false;
+    Integer shadowed;  // binder of the same name outside an abstraction
+
+    Frame(LambdaTerm term, int product) {
+      this.term = term;
+      this.product = product;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package lambda.utils;
+
+import lambda.LambdaTerm;
+
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * Supply of fresh variable names for one reduction. A name is handed out
+ * at most once and never clashes with the free variables of the term.
+ */
+public class NameSupply {
+  private HashSet<String> used = new HashSet<String>();
+  private HashMap<String, Integer> suffixes = new HashMap<String, Integer>();
+
+  public NameSupply(LambdaTerm term) {
+    term.getFreeVariables(used);
+  }
+
+  /**
+   * Keeps a name from being handed out, e.g. the name of a definition.
+   */
+  public void reserve(String name) {
+    used.add(name);
+  }
+
+  /**
+   * @return the hint itself if it is unused, otherwise the hint with a
+   *         number suffix
+   */
+  public String fresh(String hint) {
+    if(used.add(hint)) return hint;
+
+    // cut off number suffix
+    int index = hint.length();
+    while(index > 0 && Character.isDigit(hint.charAt(index - 1))) index--;
+    String base = hint.substring(0, index);
+
+    Integer suffix = suffixes.get(base);
+    int next = suffix != null ? suffix : 0;
+    while(!used.add(base + next)) next++;
+    suffixes.put(base, next + 1);
+
+    return base + next;
+  }
+}
@@ -1,48 +1,137 @@
 package lambda.utils;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
- * Position in a term.
+ * Position in a term: the steps from the root, 0 into the body of an
+ * abstraction or the function of an application and 1 into the argument.
+ *
+ * The steps are a stack whose top is the step from the root, so add puts
+ * a step in front of the path and get and remove take the first step.
+ * Steps are packed as bits, the first 64 in a long and deeper ones in a
+ * spill array, so that no step is boxed. Visitors which must not consume
+ * the position read the steps with get(depth).
  */
 public class Position {
-  private ArrayList<Integer> positions = new ArrayList<Integer>();
+  private static final long[] NO_SPILL = new long[0];
+
+  // step i of the stack is bit i % 64 of word i / 64, where word 0 is bits
+  // and word w > 0 is spill[w - 1]; bits above the length are zero
+  private long bits;
+  private long[] spill = NO_SPILL;
+  private int length;
 
   public Position copy() {
     Position position = new Position();
-    position.positions = (ArrayList<Integer>) positions.clone();
+    position.bits = bits;
+    position.spill = spill.length > 0 ? spill.clone() : NO_SPILL;
+    position.length = length;
     return position;
   }
 
+  /**
+   * Puts a step in front of the path.
+   *
+   * @param argument 0 for a body or function, 1 for an argument
+   */
   public void add(int argument) {
-    positions.add(argument);
+    reserve(length + 1);
+    if(argument != 0) setWord(length >>> 6, word(length >>> 6) | 1L << length);
+    length++;
   }
 
+  /**
+   * Puts the steps of this position in front of the given path, i.e.
+   * appends the given path to this one.
+   */
   public void append(Position position) {
-    positions.addAll(0, position.positions);
+    if(position == this) position = copy();
+    int shift = position.length;
+    if(shift == 0) return;
+    reserve(length + shift);
+
+    // move the own steps up, from the top down so that every word is read
+    // before it is overwritten
+    int words = shift >>> 6;
+    int offset = shift & 63;
+    for(int w = words(length + shift) - 1; w >= 0; w--) {
+      long high = w - words >= 0 ? word(w - words) << offset : 0;
+      long low = offset != 0 && w - words - 1 >= 0 ? word(w - words - 1) >>> (64 - offset) : 0;
+      setWord(w, high | low);
+    }
+    for(int w = words(shift) - 1; w >= 0; w--) setWord(w, word(w) | position.word(w));
+    length += shift;
   }
-  
+
+  /**
+   * @return the step from the root
+   */
   public int get() {
-    return positions.get(positions.size() - 1);
+    return get(0);
+  }
+
+  /**
+   * Reads a step without consuming the position.
+   *
+   * @param depth number of steps before it, 0 for the step from the root
+   */
+  public int get(int depth) {
+    if(depth < 0 || depth >= length) throw new IndexOutOfBoundsException("Depth: " + depth + ", Length: " + length);
+    int i = length - 1 - depth;
+    return (int) (word(i >>> 6) >>> i) & 1;
   }
 
+  /**
+   * Takes the step from the root.
+   */
   public int remove() {
-    return positions.remove(positions.size() - 1);
+    int step = get(0);
+    length--;
+    setWord(length >>> 6, word(length >>> 6) & ~(1L << length));
+    return step;
   }
 
   public int length() {
-    return positions.size();
+    return length;
+  }
+
+  private long word(int w) {
+    return w == 0 ? bits : spill[w - 1];
+  }
+
+  private void setWord(int w, long word) {
+    if(w == 0) bits = word;
+    else spill[w - 1] = word;
+  }
+
+  private static int words(int length) {
+    return (length + 63) >>> 6;
+  }
+
+  private void reserve(int length) {
+    int needed = words(length) - 1;
+    if(needed > spill.length) spill = Arrays.copyOf(spill, Math.max(needed, 2 * spill.length));
   }
 
   public String toString() {
-    String string = "<";
-    for(int p : positions) string += p + ", ";
-    string += ">";
-    return string;
+    StringBuilder string = new StringBuilder("<");
+    for(int i = 0; i < length; i++) string.append((int) (word(i >>> 6) >>> i) & 1).append(", ");
+    return string.append('>').toString();
   }
 
   public boolean equals(Object obj) {
     if(obj == null || !(obj instanceof Position)) return false;
-    return positions.equals(((Position) obj).positions);
+    Position position = (Position) obj;
+    if(length != position.length) return false;
+    for(int w = 0; w < words(length); w++) {
+      if(word(w) != position.word(w)) return false;
+    }
+    return true;
+  }
+
+  public int hashCode() {
+    long hash = length;
+    for(int w = 0; w < words(length); w++) hash = 31 * hash + word(w);
+    return (int) (hash ^ hash >>> 32);
   }
 }
@@ -0,0 +1,159 @@
+package lambda.utils;
+
+import lambda.Application;
+import lambda.Lambda;
+import lambda.LambdaTerm;
+import lambda.Variable;
+import lambda.parser.Definition;
+import lambda.parser.Definitions;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+
+/**
+ * Prints terms in one pass with an explicit stack, so deep terms print in
+ * linear time without recursion. Terms are written with the parentheses
+ * the parser needs: application associates to the left and the body of an
+ * abstraction extends as far right as possible. Output can be cut off
+ * after a number of characters or below a depth, shown as "...".
+ */
+public class TermPrinter {
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+
+  private static final String ELLIPSIS = "...";
+
+  private Definitions definitions;
+  private boolean minimal;
+  private int maxChars;
+  private int maxDepth;
+  private IdentityHashMap<LambdaTerm, Integer> hashes;  // of the subterms of the printed term
+
+  public TermPrinter() {
+    this(null);
+  }
+
+  /**
+   * @param definitions definitions whose names are printed instead of their terms, or null
+   */
+  public TermPrinter(Definitions definitions) {
+    this(definitions, true, UNLIMITED, UNLIMITED);
+  }
+
+  /**
+   * @param definitions definitions whose names are printed instead of their terms, or null
+   * @param minimal whether only needed parentheses are printed, otherwise
+   *                every application is written (M)(N)
+   * @param maxChars number of characters after which the output is cut off
+   * @param maxDepth depth below which subterms are left out
+   */
+  public TermPrinter(Definitions definitions, boolean minimal, int maxChars, int maxDepth) {
+    this.definitions = definitions;
+    this.minimal = minimal;
+    this.maxChars = maxChars;
+    this.maxDepth = maxDepth;
+  }
+
+  public String toString(LambdaTerm term) {
+    StringBuilder builder = new StringBuilder();
+    try {
+      print(term, builder);
+    } catch(IOException e) {
+      // a StringBuilder does not throw
+      throw new IllegalStateException(e);
+    }
+    return builder.toString();
+  }
+
+  public void print(LambdaTerm term, Appendable out) throws IOException {
+    hashes = definitions != null ? AlphaHash.all(term) : null;
+    ArrayList<Object> work = new ArrayList<Object>();
+    work.add(new Item(term, 0, true, atom(term, 0)));
+    int chars = 0;
+    while(!work.isEmpty()) {
+      Object next = work.remove(work.size() - 1);
+      String text;
+      if(next instanceof String) {
+        text = (String) next;
+      } else {
+        Item item = (Item) next;
+        text = item.atom != null ? item.atom : open(item, work);
+      }
+
+      if(text.length() > maxChars - chars) {
+        out.append(text, 0, maxChars - chars).append(ELLIPSIS);
+        return;
+      }
+      out.append(text);
+      chars += text.length();
+    }
+  }
+
+  /**
+   * Pushes the parts of an abstraction or application.
+   *
+   * @return text which comes first
+   */
+  private String open(Item item, ArrayList<Object> work) {
+    int depth = item.depth + 1;
+    if(item.term instanceof Lambda) {
+      Lambda lambda = (Lambda) item.term;
+      work.add(new Item(lambda.getTerm(), depth, true, atom(lambda.getTerm(), depth)));
+      return "\u03BB" + lambda.getName() + ".";
+    }
+
+    Application application = (Application) item.term;
+    LambdaTerm left = application.getLeft();
+    LambdaTerm right = application.getRight();
+    String leftAtom = atom(left, depth);
+    String rightAtom = atom(right, depth);
+    if(!minimal) {
+      work.add(")");
+      work.add(new Item(right, depth, true, rightAtom));
+      work.add(")(");
+      work.add(new Item(left, depth, true, leftAtom));
+      return "(";
+    }
+
+    // something follows the left side, and an abstraction on the right is only
+    // enclosed if something follows the application
+    boolean leftParentheses = leftAtom == null && left instanceof Lambda;
+    boolean rightParentheses = rightAtom == null && (right instanceof Application || !item.tail);
+    if(rightParentheses) work.add(")");
+    work.add(new Item(right, depth, item.tail || rightParentheses, rightAtom));
+    work.add(rightParentheses ? " (" : " ");
+    if(leftParentheses) work.add(")");
+    work.add(new Item(left, depth, leftParentheses, leftAtom));
+    return leftParentheses ? "(" : "";
+  }
+
+  /**
+   * @return the text of a term which is printed as a whole, or null
+   */
+  private String atom(LambdaTerm term, int depth) {
+    if(term instanceof Variable) return ((Variable) term).getName();
+    if(depth > maxDepth) return ELLIPSIS;
+    if(definitions == null) return null;
+
+    Definition defined = definitions.lookup(term, hashes.get(term));
+    return defined != null ? defined.getName() : null;
+  }
+
+  private static final class Item {
+    LambdaTerm term;
+    int depth;
+    boolean tail;
+    String atom;
+
+    /**
+     * @param tail whether nothing follows the term up to the enclosing parenthesis
+     * @param atom text of the term if it is printed as a whole
+     */
+    Item(LambdaTerm term, int depth, boolean tail, String atom) {
+      this.term = term;
+      this.depth = depth;
+      this.tail = tail;
+      this.atom = atom;
+    }
+  }
+}
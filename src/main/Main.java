@@ -2,6 +2,14 @@ package main;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import javax.swing.JMenu;
 import javax.swing.JMenuItem;
 import javax.swing.*;
@@ -19,31 +27,58 @@ import javax.swing.JScrollPane;
 import javax.swing.JFrame;
 import lambda.LambdaTerm;
 import lambda.Variable;
+import lambda.actions.Growth;
 import lambda.actions.HeadRedex;
 import lambda.actions.Rewrite;
+import lambda.debug.Breakpoints;
+import lambda.debug.Debugger;
+import lambda.engine.Engines;
+import lambda.engine.Equivalence;
+import lambda.engine.Governor;
+import lambda.engine.Prenormalizer;
+import lambda.engine.kn.BohmTreePrinter;
 import lambda.gui.VisitorCollapseDefined;
 import lambda.parser.Definition;
 import lambda.parser.Definitions;
+import lambda.parser.IncrementalParser;
 import lambda.parser.LambdaTermParser;
+import lambda.parser.Snapshot;
+import lambda.utils.Abbreviator;
 import lambda.utils.Position;
+import lambda.utils.TermPrinter;
  
 
 public class Main implements ActionListener  {
     public static String BetaReduction = "";  //beta reduction redex
+    private static final int maxShown = 100000; //characters of a term shown in the output
     public static String AlphaReduction = ""; //alpha reduction redex
+    private static final int markingSteps = 100000; //budget for checking equivalent answers
+    private static final int maxSteps = 10000000; //steps of a reduction
+    private static final long maxSize = 1000000; //nodes of a term of a reduction
+    private static final long timeout = 30000; //milliseconds of a run or a marking
+    private static final long maxAllocation = 1L << 30; //bytes allocated by a run
     JTextArea output;                         //displays output to user
     JScrollPane scrollPane;
     
     private JButton startButton = new JButton("Start"); 
     private JButton headStep = new JButton("Next Step"); //next reduction step
+    private JButton bohmTree = new JButton("B\u00F6hm Tree"); //streams the normal form lazily
+    private JButton run = new JButton("Run"); //reduces until a breakpoint is hit
+    private JTextField breakpoints = new JTextField("size 10000"); //breakpoints of run
     private JButton markerButton = new JButton("Marker"); //switches between marker and calculator functionality
     private JButton check = new JButton("Check");
     private JTextField input = new JTextField("(\\x.\\y.y (x x y))(\\x.\\y.y (x x y)) a");
     private LambdaTerm term = new Variable("Lambda Calculator");
     //private LambdaTerm term2 = new Variable("Marker parsing");
     private Definitions definitions = new Definitions(new Definition[0]);
+    private Definition[] prelude = new Definition[0];  //definitions loaded from the prelude, kept unless redefined by the input
+    private Definitions inputDefinitions;  //definitions of the input, updated when it is started again
+    private IncrementalParser parser = new IncrementalParser();  //parses only the definitions of the input which were edited
     
     private String[] solution;  //holds the user's list of steps of the solution
+    private Thread runner;      //background reduction started by run
+    private Governor stepper = new Governor(maxSteps);  //limits of the steps done one by one, tracks the size of the term
+    private JCheckBoxMenuItem abbreviate = new JCheckBoxMenuItem("Abbreviate repeated subterms");
  
     /**
      * creates the menu bar for the app.
@@ -66,6 +101,7 @@ public class Main implements ActionListener  {
         //a group of JMenuItems
         menuItem = new JMenuItem("Marker");
         menu.add(menuItem); 
+        menu.add(abbreviate);
         menuItem = new JMenuItem("Quit");
         menuItem.addActionListener(new ActionListener(){
             @Override
@@ -110,6 +146,17 @@ public class Main implements ActionListener  {
         headStep.setVisible(false);
         buttonPanel.add(headStep);
         
+        bohmTree.setVisible(false);
+        buttonPanel.add(bohmTree);
+        
+        breakpoints.setVisible(false);
+        breakpoints.setToolTipText("head NAME, size N, redex PATTERN");
+        breakpoints.setPreferredSize(new Dimension(120, breakpoints.getPreferredSize().height));
+        buttonPanel.add(breakpoints);
+        
+        run.setVisible(false);
+        buttonPanel.add(run);
+        
         check.setVisible(false);
         buttonPanel.add(check);
         
@@ -123,6 +170,8 @@ public class Main implements ActionListener  {
         
         startButton.addActionListener(this);
         headStep.addActionListener(this);
+        bohmTree.addActionListener(this);
+        run.addActionListener(this);
         check.addActionListener(this);
         markerButton.addActionListener(this);
         input.addActionListener(this);
@@ -145,22 +194,94 @@ public class Main implements ActionListener  {
         //calulator started
         if(actionEvent.getSource() == startButton ||actionEvent.getSource() == input){ 
             output.setText(parse()+"\n");
+            stepper = track(term);
             headStep.setVisible(true);
+            bohmTree.setVisible(true);
+            breakpoints.setVisible(true);
+            run.setVisible(true);
+            prenormalize();
         }
         //next reduction step
         if(actionEvent.getSource() == headStep){ 
             
-            Position position = term.visit(new HeadRedex(), null);
-            if(position != null) {
-                setTerm(term.visit(new Rewrite(), position.copy()), definitions, false);
+            Position position = term.visit(new HeadRedex(definitions), null);
+            if(position != null && (!stepper.step() || !stepper.grow(Growth.of(term, position, definitions)))) {
+                output.append("     // " + stepper.getExceeded() + " reached\n");
+            }
+            else if(position != null) {
+                Rewrite rewrite = new Rewrite(definitions);
+                setTerm(term.visit(rewrite, position), definitions, false);
                 output.append(" => ");
-                output.append(term.toString(definitions));
-                output.append(BetaReduction);
+                output.append(show(term, definitions));
+                output.append(rewrite.getUnfolded() != null ? "     // Delta-reduction: " + rewrite.getUnfolded() : BetaReduction);
                 output.append("\n");
                 
             }
             
         }
+        //stream the Böhm tree of the current term in the background, stopped like a run
+        if(actionEvent.getSource() == bohmTree){
+            final LambdaTerm start = term.copy();
+            output.append(" => ");
+            setRunning(true);
+            runner = new Thread(new Runnable() {
+                public void run() {
+                    TextAreaWriter writer = new TextAreaWriter(output);
+                    try {
+                        new BohmTreePrinter(20000).print(start, 1000000, writer);
+                        writer.write("\n");
+                        writer.close();
+                    } catch(IOException e) {
+                        writer.close();
+                    }
+                    SwingUtilities.invokeLater(new Runnable() {
+                        public void run() {
+                            setRunning(false);
+                        }
+                    });
+                }
+            });
+            runner.start();
+        }
+        //reduce in the background until a breakpoint is hit, or stop the running reduction
+        if(actionEvent.getSource() == run){
+            if(runner != null){
+                runner.interrupt();
+                return;
+            }
+            
+            final Definitions runDefinitions = definitions;
+            final Debugger debugger;
+            try{
+                debugger = new Debugger(runDefinitions, Breakpoints.parse(breakpoints.getText()));
+            }
+            catch(IllegalArgumentException e){
+                JOptionPane.showMessageDialog(null, e.getMessage());
+                return;
+            }
+            
+            final LambdaTerm start = term;
+            setRunning(true);
+            runner = new Thread(new Runnable() {
+                public void run() {
+                    final Debugger.Stop stop = debugger.run(start, new Governor(maxSteps, maxSize, timeout, maxAllocation));
+                    SwingUtilities.invokeLater(new Runnable() {
+                        public void run() {
+                            setTerm(stop.getTerm(), runDefinitions, false);
+                            output.append(" =>* ");
+                            output.append(show(term, runDefinitions));
+                            output.append("     // " + stop.getSteps() + " steps");
+                            if(stop.getBreakpoint() != null) output.append(", breakpoint: " + stop.getBreakpoint());
+                            if(stop.getLimit() != null) output.append(", " + stop.getLimit() + " reached");
+                            output.append("\n");
+                            stepper = track(term);
+                            setRunning(false);
+                        }
+                    });
+                }
+            });
+            runner.start();
+        }
         //toggle between marker and calculator functionality
         if(actionEvent.getSource() == markerButton){
             
@@ -170,6 +291,9 @@ public class Main implements ActionListener  {
                 input.setVisible(false);
                 startButton.setVisible(false);
                 headStep.setVisible(false);
+                bohmTree.setVisible(false);
+                breakpoints.setVisible(false);
+                run.setVisible(false);
                 check.setVisible(true);
             }
             else{
@@ -214,6 +338,87 @@ public class Main implements ActionListener  {
      
       }
     
+    /**
+     * disables the controls while a background reduction runs, marking
+     * included since it replaces the term the runner reports back to, and
+     * turns run into the button which stops it.
+     */
+    private void setRunning(boolean running) {
+        run.setText(running ? "Stop" : "Run");
+        startButton.setEnabled(!running);
+        headStep.setEnabled(!running);
+        bohmTree.setEnabled(!running);
+        input.setEnabled(!running);
+        markerButton.setEnabled(!running);
+        check.setEnabled(!running);
+        if(!running) runner = null;
+    }
+
+    /**
+     * normalizes the definitions which changed ahead of reduction in the
+     * background, if the property lambda.prenormalize gives a step budget,
+     * and reports the definitions left unnormalized.
+     */
+    private void prenormalize() {
+        Integer budget = Integer.getInteger("lambda.prenormalize");
+        if(budget == null || inputDefinitions == null) return;
+
+        final Definitions prenormalized = inputDefinitions;
+        final Prenormalizer prenormalizer = new Prenormalizer(Engines.getDefault(), budget);
+        setRunning(true);
+        runner = new Thread(new Runnable() {
+            public void run() {
+                String failure = null;
+                try {
+                    prenormalizer.normalize(prenormalized);
+                } catch(RuntimeException e) {
+                    failure = String.valueOf(e.getMessage());
+                }
+                final String report = failure != null ? "     // prenormalization failed: " + failure
+                        : "     // prenormalized" + (Thread.currentThread().isInterrupted() ? " until stopped" : "")
+                        + (prenormalizer.getExhausted().isEmpty() ? "" : ", step budget reached: " + prenormalizer.getExhausted())
+                        + (prenormalizer.getSkipped().isEmpty() ? "" : ", skipped: " + prenormalizer.getSkipped());
+                SwingUtilities.invokeLater(new Runnable() {
+                    public void run() {
+                        output.append(report + "\n");
+                        setRunning(false);
+                    }
+                });
+            }
+        });
+        runner.start();
+    }
+
+    /**
+     * creates the limits of the steps done one by one, starting with the
+     * size of the current term.
+     */
+    private static Governor track(LambdaTerm term) {
+        Governor governor = new Governor(maxSteps, maxSize, Governor.UNLIMITED, Governor.UNLIMITED);
+        governor.grow(Growth.size(term));
+        return governor;
+    }
+
+    /**
+     * prints a term of the reduction, with repeated subterms written once
+     * as #n = ... if chosen in the menu.
+     */
+    private String show(LambdaTerm term, Definitions definitions) {
+        if(!abbreviate.isSelected()) return print(term, definitions, true);
+
+        String shown = new Abbreviator(20).toString(term, definitions);
+        return shown.indexOf('\n') >= 0 ? "\n" + shown : shown;
+    }
+
+    /**
+     * prints a term for the output, cut off after maxShown characters.
+     *
+     * @param minimal whether only the needed parentheses are printed
+     */
+    private static String print(LambdaTerm term, Definitions definitions, boolean minimal) {
+        return new TermPrinter(definitions, minimal, maxShown, TermPrinter.UNLIMITED).toString(term);
+    }
+
     /**
      * checks the string entered in the input text box if it is a valid lambda expression.
      * 
@@ -223,16 +428,54 @@ public class Main implements ActionListener  {
         try{
             setTerm(new Variable("Lambda Calculator"), new Definitions(new Definition[] {}), true);
             term = new Variable("Lambda Calculator");
-            Definitions definitions = LambdaTermParser.parse("Init = "+input.getText().replace("\u03BB", "\\") +";");
-            setTerm(definitions.get("Init"), definitions, true);
-            return definitions.get("Init").toString(definitions);
+            //only definitions whose text changed since the last start are parsed and rebuilt
+            Definition[] parsed = parser.parse("Init = "+input.getText().replace("\u03BB", "\\") +";");
+            if(inputDefinitions == null) inputDefinitions = loadPrelude();
+            if(inputDefinitions == null) inputDefinitions = new Definitions(parsed, false);
+            else inputDefinitions.update(withPrelude(parsed));
+            //reduction rewrites the term in place, so it must not be the definition itself
+            setTerm(inputDefinitions.get("Init").copy(), inputDefinitions, true);
+            return print(inputDefinitions.get("Init"), inputDefinitions, false);
                  
         }
         catch(Exception e){
             //output.setText(e.toString());
+            inputDefinitions = null;
             return input.getText()+" : invalid expression";
         }
     }
+    /**
+     * loads the definitions of the file named by the property lambda.prelude,
+     * from a snapshot next to it if the file did not change since.
+     *
+     * @return the definitions or null if there is no prelude
+     */
+    private Definitions loadPrelude() throws IOException {
+        String path = System.getProperty("lambda.prelude");
+        if(path == null) return null;
+
+        String source = new String(Files.readAllBytes(Paths.get(path)), StandardCharsets.UTF_8);
+        Definitions definitions = Snapshot.parse(source, new File(path + ".snapshot"), false);
+        prelude = definitions.getDefinitions().clone();
+        return definitions;
+    }
+
+    /**
+     * puts the prelude in front of the input, without the definitions the
+     * input redefines.
+     */
+    private Definition[] withPrelude(Definition[] definitions) {
+        HashSet<String> names = new HashSet<String>();
+        for(Definition definition : definitions) names.add(definition.getName());
+
+        ArrayList<Definition> all = new ArrayList<Definition>();
+        for(Definition definition : prelude) {
+            if(!names.contains(definition.getName())) all.add(definition);
+        }
+        all.addAll(Arrays.asList(definitions));
+        return all.toArray(new Definition[all.size()]);
+    }
+
     /**
      * checks the string if it is a valid lambda expression.
      * 
@@ -242,9 +485,10 @@ public class Main implements ActionListener  {
         try{
             setTerm(new Variable("Lambda Calculator"), new Definitions(new Definition[] {}), true);
             term = new Variable("Lambda Calculator");
-            Definitions definitions = LambdaTermParser.parse("Init = "+expr.replace("\u03BB", "\\") +";");
-            setTerm(definitions.get("Init"), definitions, true);
-            return definitions.get("Init").toString(definitions);
+            Definitions definitions = LambdaTermParser.parse("Init = "+expr.replace("\u03BB", "\\") +";", false);
+            //reduction rewrites the term in place, so it must not be the definition itself
+            setTerm(definitions.get("Init").copy(), definitions, true);
+            return print(definitions.get("Init"), definitions, false);
                  
         }
         catch(Exception e){
@@ -257,6 +501,7 @@ public class Main implements ActionListener  {
      */
     public void mark(){
         int i = 0;
+        Governor marking = null;
         
         try{
             String result;
@@ -269,17 +514,29 @@ public class Main implements ActionListener  {
                     if(result.contains("invalid")){
                         break;
                     }
+                    marking = new Governor(maxSteps, maxSize, timeout, Governor.UNLIMITED);
+                    marking.grow(Growth.size(term));
                     
                 }
                 else{
                     Definitions definitions2 = LambdaTermParser.parse("Init = "+solution[i].replace("\u03BB", "\\")+";");
-                    result = definitions2.get("Init").toString(definitions2);
-                    Position position = term.visit(new HeadRedex(), null);
+                    result = print(definitions2.get("Init"), definitions2, true);
+                    Position position = term.visit(new HeadRedex(definitions), null);
+                    if(position != null && (!marking.step() || !marking.grow(Growth.of(term, position, definitions)))){
+                        output.append(result+" : not marked, "+marking.getExceeded()+" reached");
+                        break;
+                    }
                     if(position != null){
-                        setTerm(term.visit(new Rewrite(), position.copy()), definitions, false);
-                        if(result.equals(term.toString(definitions))){
+                        setTerm(term.visit(new Rewrite(definitions), position), definitions, false);
+                        LambdaTerm expected = definitions.unfold(term);
+                        LambdaTerm answer = definitions.unfold(definitions2.get("Init"));
+                        if(answer.equals(expected)){
                             output.append(result+" : correct");
                         }
+                        else if(Equivalence.of(answer, expected, markingSteps) == Equivalence.EQUAL){
+                            output.append(result+" : equivalent, but not the next reduction step");
+                            break;
+                        }
                         else{
                             output.append(result+" : incorrect");
                             break;
@@ -0,0 +1,37 @@
+package main;
+
+import java.io.Writer;
+import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
+
+/**
+ * Writer appending to a text area. Text is collected until flush and then
+ * appended on the event-dispatching thread, so it can be used from any thread.
+ */
+public class TextAreaWriter extends Writer {
+    private final JTextArea textArea;
+    private StringBuilder buffer = new StringBuilder();
+
+    public TextAreaWriter(JTextArea textArea) {
+        this.textArea = textArea;
+    }
+
+    public void write(char[] chars, int offset, int length) {
+        buffer.append(chars, offset, length);
+    }
+
+    public void flush() {
+        if(buffer.length() == 0) return;
+        final String text = buffer.toString();
+        buffer = new StringBuilder();
+        SwingUtilities.invokeLater(new Runnable() {
+            public void run() {
+                textArea.append(text);
+            }
+        });
+    }
+
+    public void close() {
+        flush();
+    }
+}